@@ -0,0 +1,190 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.exceptions.RetryableException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.AttributeDeltaBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.ResultsHandler;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rendimiento extremo a extremo del conector contra FakeDSpace: cada operación pasa por el
+// pool HTTP, la sesión JWT compartida, el limitador y los reintentos igual que en midPoint.
+// SampleTime da a la vez throughput (ops/tiempo) y percentiles de latencia. Los hilos de JMH
+// (-t) hacen de tareas concurrentes de midPoint, cada uno con su instancia del conector.
+//
+// p.ej. java -jar benchmarks.jar ConnectorThroughput -p users=100000 -p latencyMillis=5 -t 8 -rf json
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class ConnectorThroughputBenchmark {
+
+    // Servidor compartido por todos los hilos del benchmark
+    @State(Scope.Benchmark)
+    public static class Server {
+
+        @Param({"1000", "100000"})
+        public int users;
+
+        @Param({"0", "5"})
+        public long latencyMillis;
+
+        // Probabilidad de 429/503 (a partes iguales) y de 401 a la décima parte
+        @Param({"0", "0.01"})
+        public double errorRate;
+
+        private FakeDSpace dspace;
+        private final AtomicLong created = new AtomicLong();
+        // Operaciones no idempotentes que DSpace rechazó con 503 (el conector no las reintenta)
+        private final AtomicLong rejected = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            dspace = new FakeDSpace(users, 20, EpersonPages.Shape.SMALL)
+                    .setLatencyMillis(latencyMillis)
+                    .setErrorRates(errorRate / 10, errorRate / 2, errorRate / 2)
+                    .start(64);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            System.out.println("\nFake DSpace: " + dspace.getRequestCount() + " requests, "
+                    + dspace.getLoginCount() + " logins, " + dspace.getInjectedErrorCount() + " injected errors, "
+                    + rejected.get() + " rejected writes");
+            dspace.close();
+        }
+    }
+
+    // Una instancia del conector por hilo, como las del pool de midPoint (comparten sesión)
+    @State(Scope.Thread)
+    public static class Client {
+
+        private RestUsersConnector connector;
+
+        @Setup(Level.Trial)
+        public void init(Server server) {
+            RestUsersConfiguration configuration = new RestUsersConfiguration();
+            configuration.setServiceAddress(server.dspace.getServiceAddress());
+            configuration.setUsername(server.dspace.getUsername());
+            configuration.setPassword(new GuardedString(server.dspace.getPassword().toCharArray()));
+            configuration.setRetryMaxDelay(1000);
+            configuration.validate();
+            connector = new RestUsersConnector();
+            connector.init(configuration);
+        }
+
+        @TearDown(Level.Trial)
+        public void dispose() {
+            connector.dispose();
+        }
+
+        private int randomIndex(Server server) {
+            return ThreadLocalRandom.current().nextInt(server.users);
+        }
+    }
+
+    private static final OperationOptions ONE_PAGE_OPTIONS = new OperationOptionsBuilder()
+            .setPageSize(100)
+            .build();
+
+    @Benchmark
+    public void getByUid(Server server, Client client, Blackhole blackhole) {
+        Uid uid = new Uid(server.dspace.userUuid(client.randomIndex(server)));
+        client.connector.executeQuery(ObjectClass.ACCOUNT, translate(client, FilterBuilder.equalTo(uid)),
+                sink(blackhole), null);
+    }
+
+    @Benchmark
+    public void searchByEmail(Server server, Client client, Blackhole blackhole) {
+        String email = server.dspace.userEmail(client.randomIndex(server));
+        client.connector.executeQuery(ObjectClass.ACCOUNT,
+                translate(client, FilterBuilder.equalTo(AttributeBuilder.build(RestUsersConnector.ATTR_EMAIL, email))),
+                sink(blackhole), null);
+    }
+
+    // Una página de 100 del listado en una posición aleatoria (paginación de midPoint)
+    @Benchmark
+    public void searchPage(Server server, Client client, Blackhole blackhole) {
+        int offset = client.randomIndex(server) / 100 * 100 + 1;
+        OperationOptions options = new OperationOptionsBuilder(ONE_PAGE_OPTIONS).setPagedResultsOffset(offset).build();
+        client.connector.executeQuery(ObjectClass.ACCOUNT, null, sink(blackhole), options);
+    }
+
+    @Benchmark
+    public Uid create(Server server, Client client) {
+        String email = "bench" + server.created.incrementAndGet() + "-" + System.nanoTime() + "@example.org";
+        Set<Attribute> attributes = new HashSet<>();
+        attributes.add(AttributeBuilder.build(RestUsersConnector.ATTR_EMAIL, email));
+        attributes.add(AttributeBuilder.build(RestUsersConnector.ATTR_CAN_LOG_IN, true));
+        attributes.add(AttributeBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, "Bench"));
+        attributes.add(AttributeBuilder.build(RestUsersConnector.ATTR_LAST_NAME, "User"));
+        try {
+            return client.connector.create(ObjectClass.ACCOUNT, attributes, null);
+        } catch (RetryableException e) {
+            server.rejected.incrementAndGet();
+            return null;
+        }
+    }
+
+    @Benchmark
+    public void update(Server server, Client client) {
+        Uid uid = new Uid(server.dspace.userUuid(client.randomIndex(server)));
+        try {
+            client.connector.updateDelta(ObjectClass.ACCOUNT, uid, Set.of(
+                    AttributeDeltaBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, List.of("Updated")),
+                    AttributeDeltaBuilder.build(RestUsersConnector.ATTR_CAN_LOG_IN, List.of(true))), null);
+        } catch (RetryableException e) {
+            server.rejected.incrementAndGet();
+        }
+    }
+
+    // El eperson a borrar se da de alta directamente en el fake (sin HTTP), para que el
+    // conjunto de datos no encoja durante la medición
+    @Benchmark
+    public void delete(Server server, Client client) {
+        client.connector.delete(ObjectClass.ACCOUNT, new Uid(server.dspace.seedUser()), null);
+    }
+
+    private static RestUsersFilter translate(Client client, Filter filter) {
+        List<RestUsersFilter> filters = client.connector.createFilterTranslator(ObjectClass.ACCOUNT, null).translate(filter);
+        return filters.isEmpty() ? null : filters.get(0);
+    }
+
+    private static ResultsHandler sink(Blackhole blackhole) {
+        return connectorObject -> {
+            blackhole.consume(connectorObject);
+            return true;
+        };
+    }
+}
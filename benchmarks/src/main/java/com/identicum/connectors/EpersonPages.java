@@ -0,0 +1,110 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.security.GuardedString;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Datos de prueba con la forma de las respuestas reales de /server/api/eperson/epersons:
+// - SMALL: solo los campos básicos y nombre/apellido
+// - HEAVY: todos los metadatos del mapeo por defecto, varios con muchos valores (p.ej. ORCID
+//   scopes) y metadatos sin mapear que el conector debe saltarse
+public final class EpersonPages {
+
+    public enum Shape {
+        SMALL, HEAVY
+    }
+
+    private EpersonPages() {
+    }
+
+    // Conector inicializado sin tocar la red: la conversión y la construcción de peticiones
+    // no necesitan sesión (ni el registro de metadatos de DSpace)
+    public static RestUsersConnector connector() {
+        RestUsersConfiguration configuration = new RestUsersConfiguration();
+        configuration.setServiceAddress("https://dspace.example.org");
+        configuration.setUsername("admin@example.org");
+        configuration.setPassword(new GuardedString("secret".toCharArray()));
+        configuration.setSchemaDiscovery(false);
+        configuration.validate();
+        RestUsersConnector connector = new RestUsersConnector();
+        connector.init(configuration);
+        return connector;
+    }
+
+    public static JSONObject user(int index, Shape shape) {
+        String uuid = String.format("%08x-1111-4222-8333-%012d", index, index);
+        String email = "user" + index + "@example.org";
+        JSONObject metadata = new JSONObject()
+                .put(RestUsersConnector.ATTR_FIRST_NAME, values("Nombre" + index))
+                .put(RestUsersConnector.ATTR_LAST_NAME, values("Apellido Segundo" + index));
+        if (shape == Shape.HEAVY) {
+            metadata.put(RestUsersConnector.ATTR_LANGUAGE, values("es"))
+                    .put(RestUsersConnector.ATTR_PHONE, values("+51 1 555 0" + index))
+                    .put(RestUsersConnector.ATTR_LICENSE_ACCEPTED, values("true"))
+                    .put(RestUsersConnector.ATTR_LICENSE_ACCEPTED_DATE, values("2024-03-1" + (index % 10) + "T10:15:30Z"))
+                    .put(RestUsersConnector.ATTR_ALERT_EMBARGO, values("false"))
+                    .put(RestUsersConnector.ATTR_ORCID, values("0000-0002-1825-" + String.format("%04d", index % 10000)))
+                    .put(RestUsersConnector.ATTR_ORCID_SCOPE, values("/authenticate", "/read-limited",
+                            "/activities/update", "/person/update", "/orcid-works/create", "/orcid-bio/update"))
+                    .put("eperson.orcid.access-token", values("a1b2c3d4-e5f6-7890-abcd-" + String.format("%012d", index)))
+                    .put("dspace.agreements.cookies", values("{\"authentication\":true,\"preferences\":true,\"acknowledgement\":true,\"google-analytics\":false}"))
+                    .put("dspace.agreements.end-user", values("true"))
+                    .put("dc.description.provenance", values("Imported from LDAP on 2023-01-01", "Synced by midPoint"));
+        }
+        return new JSONObject()
+                .put("id", uuid)
+                .put("uuid", uuid)
+                .put("name", email)
+                .put("handle", JSONObject.NULL)
+                .put("metadata", metadata)
+                .put("netid", "net" + index)
+                .put("lastActive", "2024-06-01T08:00:00.000+00:00")
+                .put("canLogIn", true)
+                .put("email", email)
+                .put("requireCertificate", false)
+                .put("selfRegistered", index % 7 == 0)
+                .put("type", "eperson")
+                .put("_links", new JSONObject()
+                        .put("groups", link("https://dspace.example.org/server/api/eperson/epersons/" + uuid + "/groups"))
+                        .put("self", link("https://dspace.example.org/server/api/eperson/epersons/" + uuid)));
+    }
+
+    // Página HAL completa tal como la devuelve DSpace
+    public static String page(int size, Shape shape) {
+        JSONArray users = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            users.put(user(i, shape));
+        }
+        String base = "https://dspace.example.org/server/api/eperson/epersons";
+        return new JSONObject()
+                .put("_embedded", new JSONObject().put("epersons", users))
+                .put("_links", new JSONObject()
+                        .put("first", link(base + "?page=0&size=" + size))
+                        .put("self", link(base + "?page=0&size=" + size))
+                        .put("next", link(base + "?page=1&size=" + size))
+                        .put("last", link(base + "?page=799&size=" + size)))
+                .put("page", new JSONObject()
+                        .put("size", size)
+                        .put("totalElements", 80_000)
+                        .put("totalPages", 80_000 / size)
+                        .put("number", 0))
+                .toString();
+    }
+
+    private static JSONArray values(String... values) {
+        JSONArray array = new JSONArray();
+        for (int place = 0; place < values.length; place++) {
+            array.put(new JSONObject()
+                    .put("value", values[place])
+                    .put("language", JSONObject.NULL)
+                    .put("authority", JSONObject.NULL)
+                    .put("confidence", -1)
+                    .put("place", place));
+        }
+        return array;
+    }
+
+    private static JSONObject link(String href) {
+        return new JSONObject().put("href", href);
+    }
+}
@@ -0,0 +1,705 @@
+package com.identicum.connectors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.GZIPOutputStream;
+
+// Sustituto en proceso de la API REST de DSpace-CRIS con los endpoints que usa el conector:
+// - /server/api/authn/status (cookie DSPACE-XSRF-COOKIE) y /authn/login (X-XSRF-TOKEN,
+//   devuelve el JWT en la cabecera Authorization)
+// - /server/api/eperson/epersons: listado paginado, GET/PATCH/DELETE por uuid, POST de alta,
+//   search/byEmail, search/byMetadata y /{uuid}/groups
+// - /server/api/eperson/groups: listado, search/byMetadata, GET por uuid y miembros (/{uuid}/epersons)
+// - /server/api/core/metadatafields/search/bySchema?schema=eperson
+//
+// Como DSpace detrás de ShallowEtagHeaderFilter y de un proxy con gzip, las respuestas GET 200
+// llevan la ETag del cuerpo (304 ante un If-None-Match igual) y los cuerpos se comprimen si el
+// cliente acepta gzip; ambas cosas se pueden desactivar para comparar.
+//
+// Permite fijar latencia, inyectar errores (401/429/503) con una probabilidad y el tamaño del
+// conjunto de datos, para medir el conector sin red ni un DSpace real.
+public final class FakeDSpace implements AutoCloseable {
+
+    private static final String API = "/server/api";
+    private static final String XSRF = "fake-xsrf-token";
+
+    private final String username;
+    private final String password;
+
+    // Epersons en orden de alta (el listado pagina sobre esta lista) e índices por uuid/email
+    private final List<JSONObject> users = new ArrayList<>();
+    private final Map<String, JSONObject> usersByUuid = new HashMap<>();
+    private final Map<String, String> uuidByEmail = new HashMap<>();
+    private final List<JSONObject> groups = new ArrayList<>();
+    private final Map<String, Set<String>> members = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<String> issuedTokens = ConcurrentHashMap.newKeySet();
+    // Registro de metadatos eperson: los campos del mapeo por defecto y los añadidos después
+    private final List<String> metadataFields = new CopyOnWriteArrayList<>(MetadataMapping.DEFAULT_MAPPINGS);
+
+    private volatile long latencyMillis;
+    private volatile long tokenLifetimeSeconds = 1800;
+    private volatile double unauthorizedRate;
+    private volatile double tooManyRequestsRate;
+    private volatile double unavailableRate;
+    private volatile boolean etags = true;
+    private volatile boolean compression = true;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong logins = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeDSpace(int userCount, int groupCount, EpersonPages.Shape shape) {
+        this("admin@example.org", "secret");
+        for (int i = 0; i < groupCount; i++) {
+            String uuid = new UUID(0x6000_0000_0000_0000L, i).toString();
+            JSONObject group = new JSONObject()
+                    .put("id", uuid).put("uuid", uuid).put("name", "Group " + i).put("permanent", i == 0)
+                    .put("type", "group")
+                    .put("metadata", new JSONObject().put("dc.description",
+                            new JSONArray().put(new JSONObject().put("value", "Fake group " + i))));
+            groups.add(group);
+            members.put(uuid, ConcurrentHashMap.newKeySet());
+        }
+        for (int i = 0; i < userCount; i++) {
+            JSONObject user = EpersonPages.user(i, shape);
+            addUser(user);
+            if (groupCount > 0) {
+                members.get(groups.get(i % groupCount).getString("uuid")).add(user.getString("uuid"));
+            }
+        }
+    }
+
+    private FakeDSpace(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    // ==============================
+    // Configuración
+    // ==============================
+
+    public FakeDSpace setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+        return this;
+    }
+
+    public FakeDSpace setTokenLifetimeSeconds(long tokenLifetimeSeconds) {
+        this.tokenLifetimeSeconds = tokenLifetimeSeconds;
+        return this;
+    }
+
+    // Probabilidad (0..1) de responder 401, 429 o 503 a una petición autenticada
+    public FakeDSpace setErrorRates(double unauthorized, double tooManyRequests, double unavailable) {
+        this.unauthorizedRate = unauthorized;
+        this.tooManyRequestsRate = tooManyRequests;
+        this.unavailableRate = unavailable;
+        return this;
+    }
+
+    public FakeDSpace setEtags(boolean etags) {
+        this.etags = etags;
+        return this;
+    }
+
+    public FakeDSpace setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public FakeDSpace start(int threads) throws IOException {
+        // Sin TCP_NODELAY el servidor del JDK escribe cabeceras y cuerpo por separado y el ACK
+        // retardado añade ~40 ms a cada respuesta con cuerpo, lo que falsearía las medidas
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-dspace");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::dispatch);
+        server.start();
+        return this;
+    }
+
+    public String getServiceAddress() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    // ==============================
+    // Datos y contadores
+    // ==============================
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getLoginCount() {
+        return logins.get();
+    }
+
+    public long getInjectedErrorCount() {
+        return injectedErrors.get();
+    }
+
+    // Respuestas 304 (revalidaciones sin descarga)
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    // Bytes de los cuerpos enviados, comprimidos o no
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    // Nuevo campo eperson.<element>[.<qualifier>] en el registro; cambia su ETag
+    public FakeDSpace addMetadataField(String field) {
+        metadataFields.add(field);
+        return this;
+    }
+
+    public int getUserCount() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // uuid del eperson en la posición indicada (para elegir objetivos en los benchmarks)
+    public String userUuid(int index) {
+        lock.readLock().lock();
+        try {
+            return users.get(index % users.size()).getString("uuid");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String userEmail(int index) {
+        lock.readLock().lock();
+        try {
+            return users.get(index % users.size()).getString("email");
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Alta directa en memoria, sin pasar por HTTP (p.ej. para preparar borrados)
+    public String seedUser() {
+        JSONObject user = EpersonPages.user(0, EpersonPages.Shape.SMALL);
+        String uuid = UUID.randomUUID().toString();
+        String email = "seed" + sequence.incrementAndGet() + "@example.org";
+        user.put("id", uuid).put("uuid", uuid).put("name", email).put("email", email);
+        addUser(user);
+        return uuid;
+    }
+
+    private void addUser(JSONObject user) {
+        lock.writeLock().lock();
+        try {
+            users.add(user);
+            usersByUuid.put(user.getString("uuid"), user);
+            uuidByEmail.put(user.getString("email").toLowerCase(), user.getString("uuid"));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==============================
+    // Despacho de peticiones
+    // ==============================
+
+    private void dispatch(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            // El cuerpo se lee siempre para que la conexión keep-alive quede limpia
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            if (path.equals(API + "/authn/status")) {
+                exchange.getResponseHeaders().add("Set-Cookie", "DSPACE-XSRF-COOKIE=" + XSRF + "; Path=/server");
+                send(exchange, 200, new JSONObject().put("authenticated", false));
+                return;
+            }
+            if (path.equals(API + "/authn/login") && method.equals("POST")) {
+                login(exchange, new String(body, StandardCharsets.UTF_8));
+                return;
+            }
+            pause();
+            if (!authorized(exchange) || chance(unauthorizedRate)) {
+                send(exchange, 401, error(401, "Authentication is required"));
+                return;
+            }
+            if (chance(tooManyRequestsRate)) {
+                injectedErrors.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                send(exchange, 429, error(429, "Too many requests"));
+                return;
+            }
+            if (chance(unavailableRate)) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 503, error(503, "Service unavailable"));
+                return;
+            }
+
+            String[] segments = path.substring(API.length()).split("/");
+            // segments: "", "eperson", "epersons" | "groups", [uuid | "search"], [sub]
+            if (path.equals(API + "/core/metadatafields/search/bySchema")) {
+                metadataFields(exchange, query);
+            } else if (segments.length < 3 || !segments[1].equals("eperson")) {
+                send(exchange, 404, error(404, "Not found"));
+            } else if (segments[2].equals("epersons")) {
+                epersons(exchange, method, segments, query, body);
+            } else if (segments[2].equals("groups")) {
+                groups(exchange, method, segments, query);
+            } else {
+                send(exchange, 404, error(404, "Not found"));
+            }
+        } catch (RuntimeException e) {
+            send(exchange, 500, error(500, String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void login(HttpExchange exchange, String body) throws IOException {
+        Map<String, String> form = parseQuery(body);
+        String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+        if (!XSRF.equals(exchange.getRequestHeaders().getFirst("X-XSRF-TOKEN"))
+                || cookie == null || !cookie.contains("DSPACE-XSRF-COOKIE=" + XSRF)) {
+            send(exchange, 403, error(403, "Invalid XSRF token"));
+            return;
+        }
+        if (!username.equals(form.get("user")) || !password.equals(form.get("password"))) {
+            send(exchange, 401, error(401, "Invalid credentials"));
+            return;
+        }
+        long number = logins.incrementAndGet();
+        long exp = System.currentTimeMillis() / 1000 + tokenLifetimeSeconds;
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String token = encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(new JSONObject().put("eid", number).put("exp", exp).toString()
+                .getBytes(StandardCharsets.UTF_8)) + ".sig" + number;
+        issuedTokens.add(token);
+        exchange.getResponseHeaders().add("Authorization", "Bearer " + token);
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return false;
+        }
+        String token = header.substring(7);
+        if (!issuedTokens.contains(token)) {
+            return false;
+        }
+        String payload = new String(Base64.getUrlDecoder().decode(token.split("\\.")[1]), StandardCharsets.UTF_8);
+        return new JSONObject(payload).getLong("exp") * 1000 > System.currentTimeMillis();
+    }
+
+    // ==============================
+    // /eperson/epersons
+    // ==============================
+
+    private void epersons(HttpExchange exchange, String method, String[] segments, Map<String, String> query,
+                          byte[] body) throws IOException {
+        if (segments.length == 3) {
+            if (method.equals("GET")) {
+                lock.readLock().lock();
+                try {
+                    send(exchange, 200, page(users, "epersons", query));
+                } finally {
+                    lock.readLock().unlock();
+                }
+            } else if (method.equals("POST")) {
+                createUser(exchange, new JSONObject(new String(body, StandardCharsets.UTF_8)));
+            } else {
+                send(exchange, 405, error(405, "Method not allowed"));
+            }
+            return;
+        }
+        if (segments[3].equals("search") && segments.length > 4) {
+            searchUsers(exchange, segments[4], query);
+            return;
+        }
+        String uuid = segments[3];
+        if (segments.length > 4 && segments[4].equals("groups")) {
+            List<JSONObject> userGroups = new ArrayList<>();
+            for (JSONObject group : groups) {
+                if (members.get(group.getString("uuid")).contains(uuid)) {
+                    userGroups.add(group);
+                }
+            }
+            send(exchange, 200, page(userGroups, "groups", query));
+            return;
+        }
+        lock.readLock().lock();
+        JSONObject user;
+        String current;
+        try {
+            user = usersByUuid.get(uuid);
+            current = user != null ? user.toString() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (user == null) {
+            send(exchange, 404, error(404, "EPerson not found: " + uuid));
+            return;
+        }
+        switch (method) {
+            case "GET":
+                send(exchange, 200, current);
+                break;
+            case "PATCH":
+                send(exchange, 200, patchUser(user, new JSONArray(new String(body, StandardCharsets.UTF_8))));
+                break;
+            case "DELETE":
+                deleteUser(user);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            default:
+                send(exchange, 405, error(405, "Method not allowed"));
+        }
+    }
+
+    private void searchUsers(HttpExchange exchange, String search, Map<String, String> query) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (search.equals("byEmail")) {
+                String uuid = uuidByEmail.get(query.getOrDefault("email", "").toLowerCase());
+                if (uuid == null) {
+                    exchange.sendResponseHeaders(204, -1);
+                } else {
+                    send(exchange, 200, usersByUuid.get(uuid));
+                }
+            } else if (search.equals("byMetadata")) {
+                // Como DSpace: coincidencia parcial en email, nombre y apellido
+                String term = query.getOrDefault("query", "").toLowerCase();
+                List<JSONObject> matches = new ArrayList<>();
+                for (JSONObject user : users) {
+                    if (user.optString("email").toLowerCase().contains(term)
+                            || metadataValue(user, RestUsersConnector.ATTR_FIRST_NAME).contains(term)
+                            || metadataValue(user, RestUsersConnector.ATTR_LAST_NAME).contains(term)) {
+                        matches.add(user);
+                    }
+                }
+                send(exchange, 200, page(matches, "epersons", query));
+            } else {
+                send(exchange, 404, error(404, "Unknown search " + search));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void createUser(HttpExchange exchange, JSONObject request) throws IOException {
+        String email = request.optString("email", null);
+        if (email == null) {
+            send(exchange, 422, error(422, "email is required"));
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (uuidByEmail.containsKey(email.toLowerCase())) {
+                send(exchange, 409, error(409, "Email already in use"));
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        String uuid = UUID.randomUUID().toString();
+        JSONObject user = new JSONObject()
+                .put("id", uuid).put("uuid", uuid).put("name", email).put("email", email)
+                .put("netid", request.opt("netid"))
+                .put("canLogIn", request.optBoolean("canLogIn", false))
+                .put("requireCertificate", request.optBoolean("requireCertificate", false))
+                .put("selfRegistered", false)
+                .put("lastActive", JSONObject.NULL)
+                .put("type", "eperson")
+                .put("metadata", request.optJSONObject("metadata") != null ? request.getJSONObject("metadata") : new JSONObject());
+        String created = user.toString();
+        addUser(user);
+        send(exchange, 201, created);
+    }
+
+    // Subconjunto de JSON Patch que DSpace admite sobre epersons
+    private String patchUser(JSONObject user, JSONArray operations) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < operations.length(); i++) {
+                JSONObject operation = operations.getJSONObject(i);
+                String[] path = operation.getString("path").substring(1).split("/");
+                String op = operation.getString("op");
+                if (!path[0].equals("metadata")) {
+                    if (path[0].equals("email") && user.has("email")) {
+                        uuidByEmail.remove(user.getString("email").toLowerCase());
+                        uuidByEmail.put(operation.getString("value").toLowerCase(), user.getString("uuid"));
+                        // Como DSpace: el nombre del eperson es su email
+                        user.put("name", operation.get("value"));
+                    }
+                    String field = path[0].equals("canLogin") ? "canLogIn" : path[0];
+                    if (op.equals("remove")) {
+                        user.put(field, JSONObject.NULL);
+                    } else {
+                        user.put(field, operation.get("value"));
+                    }
+                    continue;
+                }
+                JSONObject metadata = user.getJSONObject("metadata");
+                String field = path[1];
+                JSONArray values = metadata.optJSONArray(field);
+                if (op.equals("remove")) {
+                    if (path.length > 2 && values != null) {
+                        values.remove(Integer.parseInt(path[2]));
+                    } else {
+                        metadata.remove(field);
+                    }
+                } else if (op.equals("add") && path.length > 2 && values != null) {
+                    values.put(operation.getJSONObject("value"));
+                } else {
+                    Object value = operation.get("value");
+                    metadata.put(field, value instanceof JSONArray ? value : new JSONArray().put(value));
+                }
+            }
+            return user.toString();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void deleteUser(JSONObject user) {
+        lock.writeLock().lock();
+        try {
+            users.remove(user);
+            usersByUuid.remove(user.getString("uuid"));
+            uuidByEmail.remove(user.getString("email").toLowerCase());
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Set<String> groupMembers : members.values()) {
+            groupMembers.remove(user.getString("uuid"));
+        }
+    }
+
+    // ==============================
+    // /eperson/groups
+    // ==============================
+
+    private void groups(HttpExchange exchange, String method, String[] segments, Map<String, String> query)
+            throws IOException {
+        if (segments.length == 3) {
+            send(exchange, 200, page(groups, "groups", query));
+            return;
+        }
+        if (segments[3].equals("search") && segments.length > 4 && segments[4].equals("byMetadata")) {
+            // Como DSpace: coincidencia parcial en el nombre
+            String term = query.getOrDefault("query", "").toLowerCase();
+            List<JSONObject> matches = new ArrayList<>();
+            for (JSONObject candidate : groups) {
+                if (candidate.optString("name").toLowerCase().contains(term)) {
+                    matches.add(candidate);
+                }
+            }
+            send(exchange, 200, page(matches, "groups", query));
+            return;
+        }
+        String uuid = segments[3];
+        JSONObject group = null;
+        for (JSONObject candidate : groups) {
+            if (candidate.getString("uuid").equals(uuid)) {
+                group = candidate;
+            }
+        }
+        if (group == null) {
+            send(exchange, 404, error(404, "Group not found: " + uuid));
+        } else if (segments.length > 4 && segments[4].equals("epersons")) {
+            List<JSONObject> groupMembers = new ArrayList<>();
+            String response;
+            lock.readLock().lock();
+            try {
+                for (String member : members.get(uuid)) {
+                    JSONObject user = usersByUuid.get(member);
+                    if (user != null) {
+                        groupMembers.add(user);
+                    }
+                }
+                response = page(groupMembers, "epersons", query).toString();
+            } finally {
+                lock.readLock().unlock();
+            }
+            send(exchange, 200, response);
+        } else if (method.equals("GET")) {
+            send(exchange, 200, group);
+        } else {
+            send(exchange, 405, error(405, "Method not allowed"));
+        }
+    }
+
+    // ==============================
+    // Registro de metadatos
+    // ==============================
+
+    private void metadataFields(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if (!"eperson".equals(query.get("schema"))) {
+            send(exchange, 200, page(Collections.emptyList(), "metadatafields", query));
+            return;
+        }
+        List<JSONObject> entries = new ArrayList<>();
+        for (String field : metadataFields) {
+            String[] parts = field.split("\\.", 3);
+            entries.add(new JSONObject()
+                    .put("id", entries.size() + 1)
+                    .put("element", parts[1])
+                    .put("qualifier", parts.length > 2 ? parts[2] : JSONObject.NULL)
+                    .put("scopeNote", JSONObject.NULL)
+                    .put("type", "metadatafield"));
+        }
+        send(exchange, 200, page(entries, "metadatafields", query));
+    }
+
+    // ==============================
+    // Utilidades
+    // ==============================
+
+    private static JSONObject page(List<JSONObject> all, String collection, Map<String, String> query) {
+        int number = Integer.parseInt(query.getOrDefault("page", "0"));
+        int size = Integer.parseInt(query.getOrDefault("size", "20"));
+        int from = Math.min(all.size(), number * size);
+        int to = Math.min(all.size(), from + size);
+        int totalPages = (all.size() + size - 1) / size;
+        JSONObject links = new JSONObject().put("self", new JSONObject().put("href", "page=" + number));
+        if (number + 1 < totalPages) {
+            links.put("next", new JSONObject().put("href", "page=" + (number + 1)));
+        }
+        return new JSONObject()
+                .put("_embedded", new JSONObject().put(collection, new JSONArray(all.subList(from, to))))
+                .put("_links", links)
+                .put("page", new JSONObject()
+                        .put("size", size).put("totalElements", all.size())
+                        .put("totalPages", totalPages).put("number", number));
+    }
+
+    private static String metadataValue(JSONObject user, String field) {
+        JSONArray values = user.getJSONObject("metadata").optJSONArray(field);
+        return values != null && !values.isEmpty() ? values.getJSONObject(0).optString("value").toLowerCase() : "";
+    }
+
+    private static JSONObject error(int status, String message) {
+        return new JSONObject().put("status", status).put("message", message);
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        if (raw == null || raw.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> parameters = new HashMap<>();
+        for (String pair : raw.split("&")) {
+            String[] parts = pair.split("=", 2);
+            parameters.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8),
+                    parts.length > 1 ? URLDecoder.decode(parts[1], StandardCharsets.UTF_8) : "");
+        }
+        return parameters;
+    }
+
+    private void pause() {
+        long latency = latencyMillis;
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static boolean chance(double rate) {
+        return rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    // Los epersons se serializan dentro del cerrojo de lectura: un PATCH concurrente los modifica
+    private void send(HttpExchange exchange, int status, JSONObject body) throws IOException {
+        send(exchange, status, body.toString());
+    }
+
+    private void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (etags && status == 200 && exchange.getRequestMethod().equals("GET")) {
+            // ETag del cuerpo, como la de ShallowEtagHeaderFilter de Spring
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+        }
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compression && acceptEncoding != null && acceptEncoding.contains("gzip")) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(bytes);
+            }
+            bytes = compressed.toByteArray();
+            exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        }
+        responseBytes.addAndGet(bytes.length);
+        exchange.getResponseHeaders().set("Content-Type", "application/hal+json;charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
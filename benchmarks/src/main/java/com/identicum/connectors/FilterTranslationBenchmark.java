@@ -0,0 +1,69 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// RestUsersFilterTranslator para los filtros de igualdad que midPoint envía en cada búsqueda
+// de correlación (uid, nombre, email, netid)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterTranslationBenchmark {
+
+    @Param({"uid", "name", "email", "netid"})
+    public String attribute;
+
+    private RestUsersFilterTranslator translator;
+    private EqualsFilter filter;
+
+    @Setup
+    public void setUp() {
+        translator = new RestUsersFilterTranslator();
+        String name;
+        switch (attribute) {
+            case "uid":
+                name = Uid.NAME;
+                break;
+            case "name":
+                name = Name.NAME;
+                break;
+            case "email":
+                name = RestUsersConnector.ATTR_EMAIL;
+                break;
+            default:
+                name = RestUsersConnector.ATTR_NET_ID;
+        }
+        filter = (EqualsFilter) FilterBuilder.equalTo(AttributeBuilder.build(name, "0000002a-1111-4222-8333-000000000042"));
+    }
+
+    @Benchmark
+    public RestUsersFilter createEqualsExpression() {
+        return translator.createEqualsExpression(filter, false);
+    }
+
+    // Camino completo de ICF: translate() normaliza el filtro y llama a createEqualsExpression
+    @Benchmark
+    public List<RestUsersFilter> translate() {
+        return translator.translate(filter);
+    }
+}
@@ -0,0 +1,72 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Reconciliación completa (listado de todos los epersons) contra FakeDSpace, secuencial o
+// con páginas en paralelo. Cada invocación es un recorrido entero: se mide en SingleShotTime.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FullScanBenchmark {
+
+    @Param({"100000"})
+    public int users;
+
+    @Param({"5"})
+    public long latencyMillis;
+
+    @Param({"1", "8"})
+    public int parallelPageFetches;
+
+    private FakeDSpace dspace;
+    private RestUsersConnector connector;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        dspace = new FakeDSpace(users, 20, EpersonPages.Shape.SMALL).setLatencyMillis(latencyMillis).start(32);
+        RestUsersConfiguration configuration = new RestUsersConfiguration();
+        configuration.setServiceAddress(dspace.getServiceAddress());
+        configuration.setUsername(dspace.getUsername());
+        configuration.setPassword(new GuardedString(dspace.getPassword().toCharArray()));
+        configuration.setParallelPageFetches(parallelPageFetches);
+        configuration.validate();
+        connector = new RestUsersConnector();
+        connector.init(configuration);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        connector.dispose();
+        dspace.close();
+    }
+
+    @Benchmark
+    public int scan() {
+        int[] count = new int[1];
+        connector.executeQuery(ObjectClass.ACCOUNT, null, connectorObject -> ++count[0] > 0, null);
+        if (count[0] != users) {
+            throw new IllegalStateException("Expected " + users + " users, got " + count[0]);
+        }
+        return count[0];
+    }
+}
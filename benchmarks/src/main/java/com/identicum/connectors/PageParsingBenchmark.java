@@ -0,0 +1,67 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.HalPageReader.HalPage;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+// Decodificación de una página del listado tal como la hace handlePaged: HalPageReader
+// leyendo el stream y, en readAndConvert, convirtiendo cada eperson según se decodifica
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PageParsingBenchmark {
+
+    @Param({"SMALL", "HEAVY"})
+    public EpersonPages.Shape shape;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private RestUsersConnector connector;
+    private String page;
+
+    @Setup
+    public void setUp() {
+        connector = EpersonPages.connector();
+        page = EpersonPages.page(pageSize, shape);
+    }
+
+    @Benchmark
+    public HalPage read(Blackhole blackhole) {
+        return HalPageReader.read(new StringReader(page), "epersons", user -> {
+            blackhole.consume(user);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public HalPage readAndConvert(Blackhole blackhole) {
+        return HalPageReader.read(new StringReader(page), "epersons", user -> {
+            blackhole.consume(connector.convertUserToConnectorObject(user, AttributeSelection.DEFAULTS, null));
+            return true;
+        });
+    }
+
+    // Referencia: decodificar la respuesta entera en memoria antes de recorrerla
+    @Benchmark
+    public JSONObject readWholeDocument() {
+        return new JSONObject(page);
+    }
+}
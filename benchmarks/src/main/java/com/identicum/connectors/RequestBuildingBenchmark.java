@@ -0,0 +1,91 @@
+package com.identicum.connectors;
+
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPatch;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.AttributeDelta;
+import org.identityconnectors.framework.common.objects.AttributeDeltaBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Construcción de las peticiones que pasan por callRequest, sin enviarlas: GET de una página
+// del listado, POST de alta de eperson y PATCH de modificación
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private static final String USERS = "https://dspace.example.org/server/api/eperson/epersons";
+
+    private RestUsersConnector connector;
+    private Set<Attribute> createAttributes;
+    private Set<AttributeDelta> modifications;
+
+    @Setup
+    public void setUp() {
+        connector = EpersonPages.connector();
+        createAttributes = new HashSet<>(Arrays.asList(
+                new Name("user42@example.org"),
+                AttributeBuilder.build(RestUsersConnector.ATTR_EMAIL, "user42@example.org"),
+                AttributeBuilder.build(RestUsersConnector.ATTR_CAN_LOG_IN, true),
+                AttributeBuilder.build(RestUsersConnector.ATTR_NET_ID, "net42"),
+                AttributeBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, "Nombre"),
+                AttributeBuilder.build(RestUsersConnector.ATTR_LAST_NAME, "Apellido"),
+                AttributeBuilder.build(RestUsersConnector.ATTR_PHONE, "+51 1 555 0042")));
+        modifications = new HashSet<>(Arrays.asList(
+                AttributeDeltaBuilder.build(RestUsersConnector.ATTR_EMAIL, List.of("new42@example.org")),
+                AttributeDeltaBuilder.build(RestUsersConnector.ATTR_CAN_LOG_IN, List.of(false)),
+                AttributeDeltaBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, List.of("Otro")),
+                AttributeDeltaBuilder.build(RestUsersConnector.ATTR_ORCID_SCOPE, List.of("/read-limited"), null)));
+    }
+
+    @Benchmark
+    public ClassicHttpRequest listPage() {
+        HttpGet request = new HttpGet(connector.pageUri(USERS, 42, 100));
+        request.setHeader("Accept", "application/json");
+        return request;
+    }
+
+    @Benchmark
+    public ClassicHttpRequest createUser() {
+        HttpPost request = new HttpPost(USERS);
+        RestUsersConnector.setJsonEntity(request, connector.buildUserJson(createAttributes));
+        return request;
+    }
+
+    @Benchmark
+    public ClassicHttpRequest patchUser() {
+        List<AttributeDelta> membershipDeltas = new ArrayList<>();
+        JsonPatch patch = connector.buildPatch(false, modifications, membershipDeltas, () -> {
+            throw new IllegalStateException("No removals in this benchmark");
+        });
+        HttpPatch request = new HttpPatch(USERS + "/0000002a-1111-4222-8333-000000000042");
+        request.setEntity(new StringEntity(patch.toString(), ContentType.create(JsonPatch.CONTENT_TYPE, StandardCharsets.UTF_8)));
+        return request;
+    }
+}
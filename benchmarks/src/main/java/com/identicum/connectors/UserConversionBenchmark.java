@@ -0,0 +1,62 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// convertUserToConnectorObject sobre una página de epersons ya decodificada (100 por página)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserConversionBenchmark {
+
+    @Param({"SMALL", "HEAVY"})
+    public EpersonPages.Shape shape;
+
+    // all: atributos por defecto; email: midPoint solo pide el email (el resto no se decodifica)
+    @Param({"all", "email"})
+    public String selection;
+
+    private RestUsersConnector connector;
+    private List<JSONObject> users;
+    private AttributeSelection attributes;
+
+    @Setup
+    public void setUp() {
+        connector = EpersonPages.connector();
+        users = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            users.add(EpersonPages.user(i, shape));
+        }
+        OperationOptions options = "email".equals(selection)
+                ? new OperationOptionsBuilder().setAttributesToGet(RestUsersConnector.ATTR_EMAIL).build()
+                : null;
+        attributes = AttributeSelection.from(options);
+    }
+
+    @Benchmark
+    public void convertPage(Blackhole blackhole) {
+        for (JSONObject user : users) {
+            blackhole.consume(connector.convertUserToConnectorObject(user, attributes, null));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Límite adaptativo de peticiones concurrentes contra un DSpace (AIMD). Sube de uno en uno
+// por cada "ventana" de respuestas rápidas, se mantiene si la latencia crece respecto a la
+// mínima observada y baja de forma multiplicativa ante 429/503 o timeouts. Se comparte entre
+// todas las instancias del conector de la JVM que apuntan a la misma dirección.
+public final class AdaptiveLimiter {
+
+    // Factor de reducción ante sobrecarga
+    private static final double BACKOFF_RATIO = 0.7;
+    // Latencia por encima de TOLERANCE x la mínima: el servidor empieza a encolar, no se sube más
+    private static final double LATENCY_TOLERANCE = 2.0;
+    // La latencia mínima de referencia se va actualizando despacio hacia las muestras recientes
+    private static final double BASELINE_DRIFT = 0.01;
+
+    private static final Map<String, AdaptiveLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private final int minLimit;
+    private volatile int maxLimit;
+    private double limit;
+    private int inFlight;
+    private double baselineNanos = Double.NaN;
+    // Las señales de sobrecarga de peticiones iniciadas antes de la última reducción ya se
+    // tuvieron en cuenta: así una ráfaga de 429 reduce una vez y no N veces
+    private long lastDecreaseNanos = System.nanoTime();
+    private long overloads;
+
+    public AdaptiveLimiter(int initialLimit, int maxLimit) {
+        this.minLimit = 1;
+        this.maxLimit = Math.max(1, maxLimit);
+        this.limit = Math.max(minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    // Limitador del servicio; el máximo sigue al tamaño del pool de la última configuración
+    public static AdaptiveLimiter forService(String serviceAddress, int maxLimit) {
+        AdaptiveLimiter limiter = LIMITERS.computeIfAbsent(serviceAddress,
+                address -> new AdaptiveLimiter(Math.max(1, maxLimit / 2), maxLimit));
+        limiter.maxLimit = Math.max(1, maxLimit);
+        return limiter;
+    }
+
+    // ==============================
+    // Reserva y liberación de huecos
+    // ==============================
+
+    // Devuelve el instante de inicio (nanoTime), que luego se pasa a onSuccess/onOverload
+    public long acquire(long timeoutMs) {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit()) {
+                if (remaining <= 0) {
+                    throw new OperationTimeoutException("Timed out after " + timeoutMs
+                            + " ms waiting for a DSpace request slot (limit " + currentLimit() + ")");
+                }
+                remaining = slotFreed.awaitNanos(remaining);
+            }
+            inFlight++;
+            return System.nanoTime();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationTimeoutException("Interrupted while waiting for a DSpace request slot", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==============================
+    // Ajuste del límite
+    // ==============================
+
+    // Respuesta normal; latencyNanos es el tiempo hasta recibir las cabeceras
+    public void onSuccess(long latencyNanos) {
+        lock.lock();
+        try {
+            if (Double.isNaN(baselineNanos) || latencyNanos < baselineNanos) {
+                baselineNanos = latencyNanos;
+            } else {
+                baselineNanos += (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+            }
+            // Solo se sube si el límite se está usando y el servidor no empieza a encolar
+            if (latencyNanos <= baselineNanos * LATENCY_TOLERANCE && inFlight >= (int) limit / 2) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 429, 503 o timeout de una petición iniciada en startNanos
+    public void onOverload(long startNanos) {
+        lock.lock();
+        try {
+            overloads++;
+            if (startNanos - lastDecreaseNanos > 0) {
+                limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return Math.max(minLimit, Math.min(maxLimit, (int) limit));
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return "[limit: " + currentLimit() + "; inFlight: " + inFlight + "; overloads: " + overloads + "]";
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.identicum.connectors;
+
+import org.apache.hc.client5.http.ClientProtocolException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.H2AsyncClientBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.InputStreamEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.CapacityChannel;
+import org.apache.hc.core5.http.nio.ssl.TlsStrategy;
+import org.apache.hc.core5.http.nio.support.classic.ContentInputStream;
+import org.apache.hc.core5.http.nio.support.classic.SharedInputBuffer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transporte HTTP/2 asíncrono (httpTransport=http2): todas las peticiones de la instancia se
+// multiplexan como streams sobre una conexión por destino, atendida por unos pocos hilos de
+// E/S, en lugar de ocupar una conexión del pool cada una. Con https se negocia h2 por ALPN;
+// con http se usa h2c directamente, así que el proxy delante de DSpace debe admitirlo.
+//
+// Expone la misma interfaz que el cliente clásico (petición clásica + handler) para que
+// execute() no cambie: el handler recibe la respuesta en cuanto llegan las cabeceras y lee el
+// cuerpo como stream mientras llega (StreamingResponseConsumer), así las páginas se siguen
+// decodificando sin cargarlas enteras en memoria. El hilo que llama sigue esperando a su
+// respuesta, como exige la API bloqueante del conector.
+public class AsyncHttpTransport implements Closeable {
+
+    private static final Log LOG = Log.getLog(AsyncHttpTransport.class);
+
+    // Bytes del cuerpo retenidos como mucho por respuesta: es la ventana que se anuncia a HTTP/2
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CloseableHttpAsyncClient client;
+
+    public AsyncHttpTransport(RestUsersConfiguration configuration, TlsStrategy tlsStrategy) {
+        AtomicInteger threadCount = new AtomicInteger();
+        H2AsyncClientBuilder builder = H2AsyncClientBuilder.create()
+                .setH2Config(H2Config.custom()
+                        .setPushEnabled(false)
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors())))
+                        .setSoTimeout(Timeout.ofMilliseconds(configuration.getSocketTimeout()))
+                        .build())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(configuration.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(configuration.getSocketTimeout()))
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(configuration.getSocketTimeout()))
+                        .build())
+                // Igual que el cliente clásico: los reintentos son cosa de RestUsersConnector.execute
+                .disableAutomaticRetries()
+                .disableCookieManagement()
+                .evictIdleConnections(TimeValue.ofMilliseconds(configuration.getIdleConnectionTimeout()))
+                .setThreadFactory(runnable -> {
+                    Thread thread = new Thread(runnable, "dspace-connector-h2-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        if (tlsStrategy != null) {
+            builder.setTlsStrategy(tlsStrategy);
+        }
+        client = builder.build();
+        client.start();
+        LOG.ok("HTTP/2 async transport started");
+    }
+
+    // ==============================
+    // Ejecución con handler clásico
+    // ==============================
+
+    // Los errores de E/S llegan como IOException, igual que con el cliente clásico, para que
+    // execute() los reintente del mismo modo
+    public <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> handler) throws IOException {
+        Future<ClassicHttpResponse> future = client.execute(
+                SimpleRequestProducer.create(toAsyncRequest(request)), new StreamingResponseConsumer(), null);
+        ClassicHttpResponse response;
+        try {
+            response = future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OperationTimeoutException("Interrupted while waiting for a DSpace response", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ClientProtocolException(cause != null ? cause.getMessage() : e.getMessage(), cause);
+        }
+        try {
+            return handler.handleResponse(response);
+        } catch (HttpException e) {
+            throw new ClientProtocolException(e.getMessage(), e);
+        } finally {
+            // Como el cliente clásico: lo que el handler no leyó se descarta para cerrar el stream
+            discard(response.getEntity());
+        }
+    }
+
+    private static void discard(HttpEntity entity) {
+        try {
+            EntityUtils.consume(entity);
+        } catch (IOException e) {
+            LOG.ok("Discarding the rest of an HTTP/2 response failed: {0}", e.getMessage());
+        }
+    }
+
+    private static SimpleHttpRequest toAsyncRequest(ClassicHttpRequest request) throws IOException {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.copy(request);
+        HttpEntity entity = request.getEntity();
+        if (entity != null) {
+            // El tipo va con el cuerpo; la cabecera copiada se quitaría duplicada en HTTP/2
+            builder.removeHeaders(HttpHeaders.CONTENT_TYPE);
+            builder.setBody(EntityUtils.toByteArray(entity), ContentType.parseLenient(entity.getContentType()));
+        }
+        return builder.build();
+    }
+
+    // ==============================
+    // Cuerpo de la respuesta como stream
+    // ==============================
+
+    // Completa con la respuesta clásica al recibir las cabeceras; los datos que llegan por la
+    // conexión se dejan en un SharedInputBuffer del que lee el hilo del handler. El buffer solo
+    // anuncia a HTTP/2 el hueco libre (control de flujo por stream), así que DSpace no envía más
+    // de BUFFER_SIZE bytes por delante de lo que el handler ya decodificó.
+    private static final class StreamingResponseConsumer implements AsyncResponseConsumer<ClassicHttpResponse> {
+        private final SharedInputBuffer buffer = new SharedInputBuffer(BUFFER_SIZE);
+        private volatile Exception failure;
+
+        @Override
+        public void consumeResponse(HttpResponse response, EntityDetails entityDetails, HttpContext context,
+                                    FutureCallback<ClassicHttpResponse> resultCallback) {
+            BasicClassicHttpResponse classic = new BasicClassicHttpResponse(response.getCode(), response.getReasonPhrase());
+            classic.setVersion(response.getVersion());
+            classic.setHeaders(response.getHeaders());
+            if (entityDetails != null) {
+                ContentType contentType = entityDetails.getContentType() != null
+                        ? ContentType.parseLenient(entityDetails.getContentType()) : null;
+                classic.setEntity(new InputStreamEntity(new BodyStream(), entityDetails.getContentLength(),
+                        contentType, entityDetails.getContentEncoding()));
+            } else {
+                buffer.markEndStream();
+            }
+            resultCallback.completed(classic);
+        }
+
+        @Override
+        public void informationResponse(HttpResponse response, HttpContext context) {
+        }
+
+        @Override
+        public void updateCapacity(CapacityChannel capacityChannel) throws IOException {
+            buffer.updateCapacity(capacityChannel);
+        }
+
+        @Override
+        public void consume(ByteBuffer src) {
+            buffer.fill(src);
+        }
+
+        @Override
+        public void streamEnd(List<? extends Header> trailers) {
+            buffer.markEndStream();
+        }
+
+        @Override
+        public void failed(Exception cause) {
+            if (!buffer.isEndStream()) {
+                failure = cause;
+            }
+            buffer.abort();
+        }
+
+        @Override
+        public void releaseResources() {
+        }
+
+        // El buffer abortado se lee como fin del cuerpo: un fallo a mitad se convierte en error
+        // para no entregar al decodificador una página truncada
+        private final class BodyStream extends ContentInputStream {
+            private BodyStream() {
+                super(buffer);
+            }
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b == -1) {
+                    checkFailure();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b) throws IOException {
+                return read(b, 0, b.length);
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n == -1) {
+                    checkFailure();
+                }
+                return n;
+            }
+
+            private void checkFailure() throws IOException {
+                Exception cause = failure;
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause != null) {
+                    throw new IOException(cause.getMessage(), cause);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        LOG.ok("Closing HTTP/2 async transport");
+        client.close(CloseMode.GRACEFUL);
+    }
+}
@@ -0,0 +1,77 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.OperationOptions;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+// Atributos que midPoint pidió en una operación (attributesToGet / returnDefaultAttributes).
+// Se resuelve una vez por búsqueda para que la conversión de cada objeto solo decodifique
+// y añada al ConnectorObjectBuilder lo que se va a devolver.
+public final class AttributeSelection {
+
+    public static final AttributeSelection DEFAULTS = new AttributeSelection(true, Collections.emptySet());
+
+    private final boolean defaults;
+    private final Set<String> names;
+
+    private AttributeSelection(boolean defaults, Set<String> names) {
+        this.defaults = defaults;
+        this.names = names;
+    }
+
+    public static AttributeSelection from(OperationOptions options) {
+        if (options == null || options.getAttributesToGet() == null) {
+            return DEFAULTS;
+        }
+        Set<String> names = new HashSet<>(Arrays.asList(options.getAttributesToGet()));
+        return new AttributeSelection(Boolean.TRUE.equals(options.getReturnDefaultAttributes()), names);
+    }
+
+    // Atributo devuelto por defecto: se incluye salvo que midPoint haya acotado la lista
+    public boolean includes(String attribute) {
+        return defaults || names.contains(attribute);
+    }
+
+    // Atributo no devuelto por defecto: solo si se pidió de forma explícita
+    public boolean includesExplicitly(String attribute) {
+        return names.contains(attribute);
+    }
+
+    public boolean includesAny(Collection<String> attributes) {
+        if (defaults) {
+            return true;
+        }
+        for (String attribute : attributes) {
+            if (names.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AttributeSelection)) {
+            return false;
+        }
+        AttributeSelection other = (AttributeSelection) o;
+        return defaults == other.defaults && names.equals(other.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Boolean.hashCode(defaults) + names.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return defaults ? "defaults+" + names : String.valueOf(names);
+    }
+}
@@ -4,57 +4,111 @@ import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.cookie.Cookie;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.json.JSONObject;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Sesión autenticada contra DSpace (cookies CSRF + JWT). Se comparte entre todas las
+// instancias del conector de la JVM con la misma dirección y credenciales (SessionRegistry),
+// por eso no guarda cliente HTTP ni hilos propios: usa los de la instancia que la llama.
 public class AuthManager {
 
+    private static final Log LOG = Log.getLog(AuthManager.class);
+
+    // Vigencia supuesta si el JWT no trae `exp` (la de DSpace por defecto: 30 minutos)
+    private static final long DEFAULT_TOKEN_LIFETIME_MS = 30 * 60 * 1000L;
+    // El token se da por caducado un poco antes de `exp` para absorber desfases de reloj
+    private static final long EXPIRY_MARGIN_MS = 30 * 1000L;
+    // Espera antes de reintentar una renovación en segundo plano fallida
+    private static final long REFRESH_RETRY_MS = 15 * 1000L;
+
     // ==============================
     // Variables y estado del autenticador
     // ==============================
-    private String jwtToken;
-    private long tokenExpirationTime;
-    private final Object lock = new Object();
-    private BasicCookieStore cookieStore;
+
+    // Token vigente, inmutable: se lee sin bloqueo y se sustituye entero
+    private static final class TokenState {
+        private final String token;
+        private final long expiresAt;
+        private final long refreshAt;
+
+        private TokenState(String token, long expiresAt, long refreshAt) {
+            this.token = token;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+        }
+    }
+
+    private final AtomicReference<TokenState> state = new AtomicReference<>();
+    // Login en curso (single-flight): el resto de hilos se suman a él en lugar de repetirlo
+    private final AtomicReference<CompletableFuture<TokenState>> login = new AtomicReference<>();
+    private volatile BasicCookieStore cookieStore;
+
+    // Logins realizados y fallidos en esta sesión, para las métricas
+    private final AtomicLong loginCount = new AtomicLong();
+    private final AtomicLong loginFailures = new AtomicLong();
 
     private final String serviceAddress;
     private final String username;
-    private final String password;
+    // Se descifra solo para el login: la sesión vive en un registro estático de la JVM
+    private final GuardedString password;
 
     // ==============================
     // Constructor
     // ==============================
-    public AuthManager(String serviceAddress, String username, String password) {
+    public AuthManager(String serviceAddress, String username, GuardedString password) {
         this.serviceAddress = serviceAddress;
         this.username = username;
-        this.password = password;
+        this.password = password.copy();
+    }
+
+    public long getLoginCount() {
+        return loginCount.get();
+    }
+
+    public long getLoginFailures() {
+        return loginFailures.get();
+    }
+
+    // Contexto por petición para que el cliente compartido use el almacén de cookies de la sesión
+    private HttpClientContext sessionContext() {
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return context;
     }
 
     // ==============================
     // Método para obtener el token CSRF
     // ==============================
-    public String obtainCsrfToken() {
+    public String obtainCsrfToken(CloseableHttpClient httpClient) {
         String endpoint = serviceAddress + "/server/api/authn/status";
         HttpGet request = new HttpGet(endpoint);
 
         // Crear el almacén de cookies
         cookieStore = new BasicCookieStore();
 
-        // Configurar el cliente HTTP con el almacén de cookies
-        try (CloseableHttpClient httpClient = HttpClients.custom()
-                .setDefaultCookieStore(cookieStore)
-                .build()) {
-
-            // Ejecutar la solicitud
-            try (CloseableHttpResponse response = httpClient.execute(request)) {
+        // Ejecutar la solicitud con el cliente compartido y el almacén de cookies de la sesión
+        DSpaceEvents.AuthExchange event = new DSpaceEvents.AuthExchange();
+        event.begin();
+        try {
+            return httpClient.execute(request, sessionContext(), response -> {
+                event.status = response.getCode();
                 if (response.getCode() == 200) {
                     // Buscar el token CSRF en las cookies
                     return cookieStore.getCookies().stream()
@@ -65,17 +119,19 @@ public class AuthManager {
                 } else {
                     throw new RuntimeException("Failed to obtain CSRF token. Status code: " + response.getCode());
                 }
-            }
+            });
         } catch (IOException e) {
             throw new RuntimeException("Error obtaining CSRF token", e);
+        } finally {
+            commit(event, "csrf", endpoint);
         }
     }
 
     // ==============================
     // Método para obtener el token JWT
     // ==============================
-    public String obtainJwtToken() {
-        String csrfToken = obtainCsrfToken();
+    public String obtainJwtToken(CloseableHttpClient httpClient) {
+        String csrfToken = obtainCsrfToken(httpClient);
         String endpoint = serviceAddress + "/server/api/authn/login";
         HttpPost request = new HttpPost(endpoint);
         request.setHeader("Content-Type", "application/x-www-form-urlencoded");
@@ -84,39 +140,160 @@ public class AuthManager {
         // Configurar parámetros de autenticación
         List<BasicNameValuePair> params = new ArrayList<>();
         params.add(new BasicNameValuePair("user", username));
-        params.add(new BasicNameValuePair("password", password));
+        password.access(clearChars -> params.add(new BasicNameValuePair("password", new String(clearChars))));
         request.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
 
         // Realizar la solicitud
-        try (CloseableHttpClient httpClient = HttpClients.custom().setDefaultCookieStore(cookieStore).build();
-             CloseableHttpResponse response = httpClient.execute(request)) {
-
-            if (response.getCode() == 200) {
-                var authHeader = response.getFirstHeader("Authorization");
-                if (authHeader != null && authHeader.getValue().startsWith("Bearer ")) {
-                    jwtToken = authHeader.getValue().substring(7);
-                    tokenExpirationTime = System.currentTimeMillis() + 3600 * 1000; // 1 hora
-                    return jwtToken;
+        DSpaceEvents.AuthExchange event = new DSpaceEvents.AuthExchange();
+        event.begin();
+        try {
+            return httpClient.execute(request, sessionContext(), response -> {
+                event.status = response.getCode();
+                if (response.getCode() == 200) {
+                    var authHeader = response.getFirstHeader("Authorization");
+                    if (authHeader != null && authHeader.getValue().startsWith("Bearer ")) {
+                        return authHeader.getValue().substring(7);
+                    } else {
+                        throw new RuntimeException("Authorization header missing or invalid");
+                    }
                 } else {
-                    throw new RuntimeException("Authorization header missing or invalid");
+                    throw new RuntimeException("Failed to obtain JWT token. Status code: " + response.getCode());
                 }
-            } else {
-                throw new RuntimeException("Failed to obtain JWT token. Status code: " + response.getCode());
-            }
+            });
         } catch (IOException e) {
             throw new RuntimeException("Error obtaining JWT token", e);
+        } finally {
+            commit(event, "login", endpoint);
+        }
+    }
+
+    private static void commit(DSpaceEvents.AuthExchange event, String step, String endpoint) {
+        if (event.shouldCommit()) {
+            event.step = step;
+            event.endpoint = endpoint;
+            event.commit();
         }
     }
 
     // ==============================
     // Obtener el token JWT almacenado o renovarlo
     // ==============================
-    public String getJwtToken() {
-        synchronized (lock) {
-            if (jwtToken == null || System.currentTimeMillis() > tokenExpirationTime) {
-                jwtToken = obtainJwtToken();
+
+    // Camino rápido sin bloqueo: mientras el token siga vigente se devuelve tal cual y, pasado
+    // su punto de renovación, se lanza un único login en segundo plano. Solo se espera a un
+    // login cuando no hay token válido (primer uso, caducidad o rechazo con 401).
+    public String getJwtToken(CloseableHttpClient httpClient, Executor refreshExecutor) {
+        TokenState current = state.get();
+        long now = System.currentTimeMillis();
+        if (current != null && now < current.expiresAt) {
+            if (now >= current.refreshAt) {
+                startLogin(httpClient, refreshExecutor);
+            }
+            return current.token;
+        }
+        // Con JFR activo queda registrado cuánto esperó este hilo al login (propio o de otro hilo)
+        DSpaceEvents.AuthWait event = new DSpaceEvents.AuthWait();
+        event.begin();
+        try {
+            String token = startLogin(httpClient, null).join().token;
+            event.succeeded = true;
+            return token;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorException("Error obtaining JWT token", e.getCause());
+        } finally {
+            event.commit();
+        }
+    }
+
+    // DSpace rechazó el token (401): se descarta para que la siguiente petición haga login.
+    // Solo si sigue siendo el vigente, para no tirar uno que otro hilo ya haya renovado.
+    public void invalidate(String rejectedToken) {
+        TokenState current = state.get();
+        if (current != null && current.token.equals(rejectedToken) && state.compareAndSet(current, null)) {
+            LOG.ok("JWT token rejected by DSpace, a new login will be performed");
+        }
+    }
+
+    // Inicia el login si no hay otro en curso y devuelve el futuro compartido.
+    // Con refreshExecutor se hace en segundo plano; sin él, en el hilo que llama.
+    private CompletableFuture<TokenState> startLogin(CloseableHttpClient httpClient, Executor refreshExecutor) {
+        boolean background = refreshExecutor != null;
+        while (true) {
+            CompletableFuture<TokenState> inFlight = login.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            CompletableFuture<TokenState> mine = new CompletableFuture<>();
+            if (!login.compareAndSet(null, mine)) {
+                continue;
+            }
+            Runnable task = () -> {
+                long started = System.nanoTime();
+                try {
+                    TokenState fresh = toTokenState(obtainJwtToken(httpClient));
+                    loginCount.incrementAndGet();
+                    ConnectorMetrics.forService(serviceAddress).record(ConnectorMetrics.Operation.LOGIN,
+                            System.nanoTime() - started, false);
+                    state.set(fresh);
+                    mine.complete(fresh);
+                } catch (Throwable t) {
+                    loginFailures.incrementAndGet();
+                    ConnectorMetrics.forService(serviceAddress).record(ConnectorMetrics.Operation.LOGIN,
+                            System.nanoTime() - started, true);
+                    if (background) {
+                        LOG.warn("Background JWT refresh failed, the current token is kept: {0}", t.getMessage());
+                        postponeRefresh();
+                    }
+                    mine.completeExceptionally(t);
+                } finally {
+                    login.compareAndSet(mine, null);
+                }
+            };
+            if (!background) {
+                task.run();
+                return mine;
+            }
+            try {
+                refreshExecutor.execute(task);
+            } catch (RuntimeException e) {
+                // Sin hilo disponible (p.ej. conector liberándose): se renovará en otra llamada
+                login.compareAndSet(mine, null);
+                mine.completeExceptionally(e);
+            }
+            return mine;
+        }
+    }
+
+    // Tras un fallo, el token vigente se sigue usando y la renovación se reintenta más tarde
+    private void postponeRefresh() {
+        TokenState current = state.get();
+        if (current != null) {
+            long retryAt = Math.min(current.expiresAt, System.currentTimeMillis() + REFRESH_RETRY_MS);
+            state.compareAndSet(current, new TokenState(current.token, current.expiresAt, retryAt));
+        }
+    }
+
+    // Caducidad tomada del claim `exp`; la renovación se programa a 3/4 de la vida restante
+    private static TokenState toTokenState(String token) {
+        long now = System.currentTimeMillis();
+        long expiresAt = now + DEFAULT_TOKEN_LIFETIME_MS;
+        String[] parts = token.split("\\.");
+        if (parts.length >= 2) {
+            try {
+                JSONObject claims = new JSONObject(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+                if (claims.has("exp")) {
+                    expiresAt = claims.getLong("exp") * 1000L;
+                }
+            } catch (RuntimeException e) {
+                LOG.warn("Cannot read exp claim from JWT, assuming default lifetime: {0}", e.getMessage());
             }
-            return jwtToken;
         }
+        expiresAt = Math.max(now, expiresAt - EXPIRY_MARGIN_MS);
+        long refreshAt = now + (expiresAt - now) * 3 / 4;
+        LOG.ok("JWT token obtained, valid for {0} s", (expiresAt - now) / 1000);
+        return new TokenState(token, expiresAt, refreshAt);
     }
 }
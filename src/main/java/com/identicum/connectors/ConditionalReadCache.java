@@ -0,0 +1,137 @@
+package com.identicum.connectors;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Resultados de lecturas GET ya convertidos (eperson o grupo por uuid, páginas de membresías),
+// guardados por URL junto con la ETag / Last-Modified con la que DSpace los sirvió. La
+// siguiente lectura los manda como If-None-Match / If-Modified-Since y, si DSpace responde
+// 304, se reutiliza el resultado sin descargar ni decodificar el cuerpo. A diferencia de
+// ObjectCache siempre se pregunta a DSpace, así que no hay TTL. Acotada en tamaño (LRU).
+// Como ObjectCache, se comparte entre las instancias del pool con el mismo servicio y
+// usuario: lo que lee una lo revalida otra, y una escritura invalida lo de todas.
+public final class ConditionalReadCache {
+
+    private static final Map<String, ConditionalReadCache> CACHES = new ConcurrentHashMap<>();
+
+    // Instantánea de los contadores, p.ej. para test()
+    public static final class Stats {
+        private final long notModified;
+        private final long modified;
+        private final int size;
+
+        private Stats(long notModified, long modified, int size) {
+            this.notModified = notModified;
+            this.modified = modified;
+            this.size = size;
+        }
+
+        // Revalidaciones con 304
+        public long getNotModified() {
+            return notModified;
+        }
+
+        // Revalidaciones con un cuerpo nuevo
+        public long getModified() {
+            return modified;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "[not modified: " + notModified + "; modified: " + modified + "; size: " + size + "]";
+        }
+    }
+
+    // variant distingue conversiones distintas de la misma URL (p.ej. otros atributos pedidos)
+    public static final class Entry {
+        private final Object variant;
+        private final String etag;
+        private final String lastModified;
+        private final Object value;
+
+        private Entry(Object variant, String etag, String lastModified, Object value) {
+            this.variant = variant;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.value = value;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    private volatile int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private long notModified;
+    private long modified;
+
+    public ConditionalReadCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        // accessOrder = true: la entrada menos usada recientemente es la primera en salir
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ConditionalReadCache.this.maxEntries;
+            }
+        };
+    }
+
+    // Caché del servicio y usuario; el tamaño sigue a la última configuración
+    public static ConditionalReadCache forService(String serviceAddress, String username, int maxEntries) {
+        ConditionalReadCache cache = CACHES.computeIfAbsent(serviceAddress + "|" + username,
+                key -> new ConditionalReadCache(maxEntries));
+        cache.maxEntries = maxEntries;
+        return cache;
+    }
+
+    // null si no hay lectura previa de la URL con la misma variante
+    public synchronized Entry get(String url, Object variant) {
+        Entry entry = entries.get(url);
+        return entry != null && Objects.equals(entry.variant, variant) ? entry : null;
+    }
+
+    // Sin ETag ni Last-Modified no hay con qué revalidar: no se guarda nada
+    public synchronized void put(String url, Object variant, String etag, String lastModified, Object value) {
+        if (etag == null && lastModified == null) {
+            entries.remove(url);
+            return;
+        }
+        entries.put(url, new Entry(variant, etag, lastModified, value));
+    }
+
+    public synchronized void remove(String url) {
+        entries.remove(url);
+    }
+
+    // Todas las lecturas de un objeto: la suya y las de sus membresías (URL con su uuid)
+    public synchronized void invalidate(String uuid) {
+        entries.keySet().removeIf(url -> url.contains(uuid));
+    }
+
+    public synchronized void recordNotModified() {
+        notModified++;
+    }
+
+    public synchronized void recordModified() {
+        modified++;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(notModified, modified, entries.size());
+    }
+}
@@ -0,0 +1,215 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.logging.Log;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Métricas del conector por DSpace: latencias (p50/p99/max) de las operaciones de midPoint,
+// de cada petición HTTP y de los logins, bytes enviados/recibidos y errores por código y por
+// endpoint. Se comparten entre todas las instancias de la JVM que apuntan a la misma dirección
+// (como AdaptiveLimiter) y se publican por JMX para las alertas de operaciones.
+public final class ConnectorMetrics implements ConnectorMetricsMXBean {
+
+    private static final Log LOG = Log.getLog(ConnectorMetrics.class);
+
+    public enum Operation {
+        CREATE, UPDATE, DELETE, SEARCH, LOGIN
+    }
+
+    // Clave de los errores sin respuesta HTTP (timeouts, conexión rechazada...)
+    public static final int IO_ERROR = -1;
+
+    private static final String OBJECT_NAME = "com.identicum.connectors:type=DSpaceConnector,service=";
+
+    private static final Pattern UUID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private static final Map<String, ConnectorMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final String serviceAddress;
+    private final Map<Operation, LatencyHistogram> operations = new EnumMap<>(Operation.class);
+    private final LatencyHistogram requests = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> requestsByEndpoint = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errorsByEndpoint = new ConcurrentHashMap<>();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    private ConnectorMetrics(String serviceAddress) {
+        this.serviceAddress = serviceAddress;
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new LatencyHistogram());
+        }
+    }
+
+    public static ConnectorMetrics forService(String serviceAddress) {
+        return METRICS.computeIfAbsent(serviceAddress, address -> {
+            ConnectorMetrics metrics = new ConnectorMetrics(address);
+            metrics.register();
+            return metrics;
+        });
+    }
+
+    // Un fallo al registrar (p.ej. otra versión del conector ya publicó el mismo nombre en otro
+    // classloader) no impide trabajar: las métricas siguen disponibles en test()
+    private void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME + ObjectName.quote(serviceAddress));
+            if (!server.isRegistered(name)) {
+                server.registerMBean(this, name);
+            }
+        } catch (JMException | SecurityException e) {
+            LOG.warn("Cannot register connector metrics MBean for {0}: {1}", serviceAddress, e.getMessage());
+        }
+    }
+
+    // ==============================
+    // Registro de muestras
+    // ==============================
+
+    public void record(Operation operation, long nanos, boolean failed) {
+        operations.get(operation).record(nanos, failed);
+    }
+
+    // Un intento de petición HTTP; statusCode IO_ERROR si no hubo respuesta
+    public void recordExchange(String method, String requestUri, int statusCode, long nanos, long sent, long received) {
+        boolean failed = statusCode == IO_ERROR || statusCode >= 400;
+        String endpoint = method + " " + endpointOf(requestUri);
+        requests.record(nanos, failed);
+        requestsByEndpoint.computeIfAbsent(endpoint, e -> new LatencyHistogram()).record(nanos, failed);
+        if (sent > 0) {
+            bytesSent.add(sent);
+        }
+        if (received > 0) {
+            bytesReceived.add(received);
+        }
+        if (failed) {
+            errorsByStatus.computeIfAbsent(statusCode == IO_ERROR ? "io" : String.valueOf(statusCode),
+                    s -> new LongAdder()).increment();
+            errorsByEndpoint.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+        }
+    }
+
+    // Ruta sin parámetros y con los UUID sustituidos, para que el número de series no crezca
+    // con los objetos: /server/api/eperson/epersons/{id}/groups
+    static String endpointOf(String requestUri) {
+        String path = requestUri;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        return UUID.matcher(path).replaceAll("{id}");
+    }
+
+    // ==============================
+    // Atributos JMX
+    // ==============================
+
+    @Override
+    public String getServiceAddress() {
+        return serviceAddress;
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getCreateLatency() {
+        return operations.get(Operation.CREATE).snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getUpdateLatency() {
+        return operations.get(Operation.UPDATE).snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getDeleteLatency() {
+        return operations.get(Operation.DELETE).snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getSearchLatency() {
+        return operations.get(Operation.SEARCH).snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getLoginLatency() {
+        return operations.get(Operation.LOGIN).snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getRequestLatency() {
+        return requests.snapshot();
+    }
+
+    @Override
+    public Map<String, LatencyHistogram.Snapshot> getRequestLatencyByEndpoint() {
+        Map<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        requestsByEndpoint.forEach((endpoint, histogram) -> snapshots.put(endpoint, histogram.snapshot()));
+        return snapshots;
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.snapshot().getCount();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByStatus() {
+        return sums(errorsByStatus);
+    }
+
+    @Override
+    public Map<String, Long> getErrorsByEndpoint() {
+        return sums(errorsByEndpoint);
+    }
+
+    @Override
+    public void reset() {
+        operations.values().forEach(LatencyHistogram::reset);
+        requests.reset();
+        requestsByEndpoint.clear();
+        errorsByStatus.clear();
+        errorsByEndpoint.clear();
+        bytesSent.reset();
+        bytesReceived.reset();
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> sums = new TreeMap<>();
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+
+    // Resumen de una línea para el log de test()
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<Operation, LatencyHistogram> entry : operations.entrySet()) {
+            summary.append(entry.getKey().name().toLowerCase()).append(' ').append(entry.getValue().snapshot()).append("; ");
+        }
+        return summary.append("requests ").append(requests.snapshot())
+                .append("; bytes sent/received: ").append(getBytesSent()).append('/').append(getBytesReceived())
+                .append("; errors by status: ").append(getErrorsByStatus())
+                .append("; errors by endpoint: ").append(getErrorsByEndpoint())
+                .toString();
+    }
+}
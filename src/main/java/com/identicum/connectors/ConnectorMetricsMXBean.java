@@ -0,0 +1,39 @@
+package com.identicum.connectors;
+
+import java.util.Map;
+
+// Vista JMX de ConnectorMetrics (com.identicum.connectors:type=DSpaceConnector,service=...).
+// Latencias en milisegundos; los mapas se publican como TabularData.
+public interface ConnectorMetricsMXBean {
+
+    String getServiceAddress();
+
+    LatencyHistogram.Snapshot getCreateLatency();
+
+    LatencyHistogram.Snapshot getUpdateLatency();
+
+    LatencyHistogram.Snapshot getDeleteLatency();
+
+    LatencyHistogram.Snapshot getSearchLatency();
+
+    LatencyHistogram.Snapshot getLoginLatency();
+
+    // Todas las peticiones HTTP (cada intento cuenta)
+    LatencyHistogram.Snapshot getRequestLatency();
+
+    // Por endpoint normalizado: "GET /server/api/eperson/epersons/{id}"
+    Map<String, LatencyHistogram.Snapshot> getRequestLatencyByEndpoint();
+
+    long getRequestCount();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    // Respuestas >= 400 por código; "io" para errores de conexión sin respuesta
+    Map<String, Long> getErrorsByStatus();
+
+    Map<String, Long> getErrorsByEndpoint();
+
+    void reset();
+}
@@ -0,0 +1,126 @@
+package com.identicum.connectors;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Eventos de JDK Flight Recorder del conector, para ver en JMC dónde se va el tiempo de una
+// tarea de midPoint: DSpace, decodificación del JSON o espera al login de la sesión.
+// Desactivados por defecto (también en las plantillas default/profile): se activan con
+// jfr/dspace-connector.jfc. Desactivados, begin/commit no hacen nada y el JIT los elimina;
+// los campos solo se calculan tras shouldCommit().
+final class DSpaceEvents {
+
+    private static final String CATEGORY = "DSpace Connector";
+
+    private DSpaceEvents() {
+    }
+
+    // Un intento de petición HTTP de execute(); la duración va desde que se consigue hueco en
+    // el limitador hasta que el handler termina de leer la respuesta
+    @Name("com.identicum.connectors.HttpExchange")
+    @Label("DSpace HTTP Exchange")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class HttpExchange extends Event {
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        @Description("Request path with UUIDs replaced by {id}")
+        String endpoint;
+
+        @Label("Status")
+        @Description("HTTP status, -1 if no response was received")
+        int status;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Bytes Sent")
+        @DataAmount
+        long bytesSent;
+
+        @Label("Bytes Received")
+        @DataAmount
+        long bytesReceived;
+
+        @Label("Limiter Wait")
+        @Description("Time spent waiting for a slot of the adaptive concurrency limit")
+        @Timespan
+        long limiterWait;
+
+        @Label("Time To First Byte")
+        @Description("From sending the request until the response headers arrived")
+        @Timespan
+        long timeToFirstByte;
+
+        @Label("Decode Time")
+        @Description("Reading and decoding the response body")
+        @Timespan
+        long decodeTime;
+    }
+
+    // Petición de autenticación de AuthManager (estado/CSRF o login)
+    @Name("com.identicum.connectors.AuthExchange")
+    @Label("DSpace Authentication Request")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class AuthExchange extends Event {
+        @Label("Step")
+        @Description("csrf or login")
+        String step;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Status")
+        @Description("HTTP status, -1 if no response was received")
+        int status = -1;
+    }
+
+    // Hilo bloqueado esperando el login de la sesión compartida (sin token válido)
+    @Name("com.identicum.connectors.AuthWait")
+    @Label("DSpace Authentication Wait")
+    @Category(CATEGORY)
+    @Enabled(false)
+    static final class AuthWait extends Event {
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    // Una página de una búsqueda: descarga, conversión y entrega al handler
+    @Name("com.identicum.connectors.SearchPage")
+    @Label("DSpace Search Page")
+    @Category(CATEGORY)
+    @Enabled(false)
+    @StackTrace(false)
+    static final class SearchPage extends Event {
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Page")
+        int page;
+
+        @Label("Page Size")
+        int size;
+
+        @Label("Elements")
+        int elements;
+
+        @Label("Total Pages")
+        int totalPages;
+
+        @Label("Parallel")
+        @Description("Fetched by the parallel page fetcher")
+        boolean parallel;
+    }
+}
@@ -0,0 +1,157 @@
+package com.identicum.connectors;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.Reader;
+import java.util.function.Predicate;
+
+// Lectura en streaming de una página HAL de DSpace:
+//   { "_embedded": { "<colección>": [ {...}, {...} ] }, "_links": {...}, "page": {...} }
+// Cada elemento de _embedded.<colección> se entrega al handler en cuanto se termina de leer,
+// sin construir el String completo ni el árbol JSONObject de la página. Si el handler pide
+// parar, el resto de elementos se descarta pero se siguen leyendo _links y page.
+public final class HalPageReader {
+
+    // ==============================
+    // Información de la página leída
+    // ==============================
+    public static final class HalPage {
+        private int elements;
+        private boolean stopped;
+        private boolean nextLink;
+        private int number = -1;
+        private int totalPages = -1;
+        private long totalElements = -1;
+
+        public int getElements() {
+            return elements;
+        }
+
+        // true si el handler pidió detener la lectura
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        // Para quien entrega los elementos después de leer la página completa
+        void stop() {
+            stopped = true;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public int getTotalPages() {
+            return totalPages;
+        }
+
+        public long getTotalElements() {
+            return totalElements;
+        }
+
+        // DSpace indica la siguiente página con _links.next; page.totalPages sirve de respaldo
+        public boolean hasNext() {
+            if (stopped || elements == 0) {
+                return false;
+            }
+            return nextLink || (number >= 0 && number + 1 < totalPages);
+        }
+    }
+
+    private HalPageReader() {
+    }
+
+    public static HalPage read(Reader reader, String collection, Predicate<JSONObject> elementHandler) {
+        JSONTokener tokener = new JSONTokener(reader);
+        HalPage page = new HalPage();
+
+        expect(tokener, '{');
+        if (tokener.nextClean() == '}') {
+            return page;
+        }
+        tokener.back();
+        do {
+            String key = nextKey(tokener);
+            switch (key) {
+                case "_embedded":
+                    readEmbedded(tokener, collection, elementHandler, page);
+                    break;
+                case "_links":
+                    JSONObject links = (JSONObject) tokener.nextValue();
+                    page.nextLink = links.has("next");
+                    break;
+                case "page":
+                    JSONObject pageInfo = (JSONObject) tokener.nextValue();
+                    page.number = pageInfo.optInt("number", -1);
+                    page.totalPages = pageInfo.optInt("totalPages", -1);
+                    page.totalElements = pageInfo.optLong("totalElements", -1);
+                    break;
+                default:
+                    tokener.nextValue();
+            }
+        } while (nextMember(tokener, '}'));
+        return page;
+    }
+
+    private static void readEmbedded(JSONTokener tokener, String collection, Predicate<JSONObject> elementHandler, HalPage page) {
+        expect(tokener, '{');
+        if (tokener.nextClean() == '}') {
+            return;
+        }
+        tokener.back();
+        do {
+            String key = nextKey(tokener);
+            if (!collection.equals(key)) {
+                tokener.nextValue();
+                continue;
+            }
+            expect(tokener, '[');
+            if (tokener.nextClean() == ']') {
+                continue;
+            }
+            tokener.back();
+            do {
+                Object element = tokener.nextValue();
+                if (!(element instanceof JSONObject)) {
+                    throw tokener.syntaxError("Expected an object in _embedded." + collection);
+                }
+                // Tras una parada se descartan los restantes para llegar igualmente a "page"
+                if (!page.stopped) {
+                    page.elements++;
+                    page.stopped = !elementHandler.test((JSONObject) element);
+                }
+            } while (nextMember(tokener, ']'));
+        } while (nextMember(tokener, '}'));
+    }
+
+    private static String nextKey(JSONTokener tokener) {
+        char quote = tokener.nextClean();
+        if (quote != '"') {
+            throw tokener.syntaxError("Expected a quoted key");
+        }
+        String key = tokener.nextString(quote);
+        expect(tokener, ':');
+        return key;
+    }
+
+    // Consume el separador tras un miembro; devuelve false al llegar al cierre
+    private static boolean nextMember(JSONTokener tokener, char close) {
+        char c = tokener.nextClean();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw tokener.syntaxError("Expected ',' or '" + close + "'");
+    }
+
+    private static void expect(JSONTokener tokener, char expected) throws JSONException {
+        char c = tokener.nextClean();
+        if (c != expected) {
+            throw tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+}
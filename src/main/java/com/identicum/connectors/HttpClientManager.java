@@ -0,0 +1,127 @@
+package com.identicum.connectors;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
+import org.apache.hc.client5.http.ssl.TrustAllStrategy;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.ssl.SSLContextBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+import javax.net.ssl.SSLContext;
+import java.io.Closeable;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+// Cliente HTTP con pool de conexiones keep-alive, compartido por todas las llamadas
+// que una instancia del conector hace contra DSpace (incluida la autenticación).
+// Con httpTransport=http2 las peticiones de execute() van por AsyncHttpTransport; la
+// autenticación sigue en el cliente clásico (usa su propio contexto de cookies).
+public class HttpClientManager implements Closeable {
+
+    private static final Log LOG = Log.getLog(HttpClientManager.class);
+
+    // ==============================
+    // Variables del pool de conexiones
+    // ==============================
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+    private final AsyncHttpTransport asyncTransport;
+
+    // ==============================
+    // Constructor
+    // ==============================
+    public HttpClientManager(RestUsersConfiguration configuration) {
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(configuration.getConnectTimeout()))
+                .setSocketTimeout(Timeout.ofMilliseconds(configuration.getSocketTimeout()))
+                .build();
+
+        PoolingHttpClientConnectionManagerBuilder managerBuilder = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnPerRoute(configuration.getMaxConnectionsPerRoute())
+                .setMaxConnTotal(configuration.getMaxConnectionsTotal())
+                .setDefaultConnectionConfig(connectionConfig);
+        DefaultClientTlsStrategy tlsStrategy = Boolean.TRUE.equals(configuration.getTrustAllCertificates())
+                ? trustAllTlsStrategy() : null;
+        if (tlsStrategy != null) {
+            managerBuilder.setTlsSocketStrategy(tlsStrategy);
+        }
+        connectionManager = managerBuilder.build();
+
+        // Las conexiones sin cabecera Keep-Alive del servidor se reutilizan durante keepAliveTimeout
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(configuration.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.ofMilliseconds(configuration.getSocketTimeout()))
+                .setConnectionKeepAlive(TimeValue.ofMilliseconds(configuration.getKeepAliveTimeout()))
+                .build();
+
+        // Los reintentos (429/503, errores de conexión) los gestiona RestUsersConnector.execute
+        // junto con el límite de concurrencia; los automáticos del cliente se sumarían a ellos
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableAutomaticRetries()
+                // Accept-Encoding y descompresión los pone RestUsersConnector.execute, para los dos transportes
+                .disableContentCompression()
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(configuration.getIdleConnectionTimeout()))
+                .build();
+
+        asyncTransport = RestUsersConfiguration.HTTP_TRANSPORT_HTTP2.equals(configuration.getHttpTransport())
+                ? new AsyncHttpTransport(configuration, tlsStrategy) : null;
+
+        LOG.ok("HTTP connection pool created, maxPerRoute: {0}, maxTotal: {1}, transport: {2}",
+                configuration.getMaxConnectionsPerRoute(), configuration.getMaxConnectionsTotal(),
+                asyncTransport != null ? RestUsersConfiguration.HTTP_TRANSPORT_HTTP2 : RestUsersConfiguration.HTTP_TRANSPORT_CLASSIC);
+    }
+
+    private static DefaultClientTlsStrategy trustAllTlsStrategy() {
+        try {
+            SSLContext sslContext = SSLContextBuilder.create()
+                    .loadTrustMaterial(TrustAllStrategy.INSTANCE)
+                    .build();
+            return new DefaultClientTlsStrategy(sslContext, NoopHostnameVerifier.INSTANCE);
+        } catch (GeneralSecurityException e) {
+            throw new ConnectorException("Error creating trust-all SSL context", e);
+        }
+    }
+
+    // ==============================
+    // Acceso al cliente y estadísticas del pool
+    // ==============================
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    // Peticiones de las operaciones: por el transporte configurado
+    public <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> handler) throws IOException {
+        if (asyncTransport != null) {
+            return asyncTransport.execute(request, handler);
+        }
+        return httpClient.execute(request, handler);
+    }
+
+    public PoolStats getPoolStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    @Override
+    public void close() {
+        LOG.ok("Closing HTTP connection pool, stats: {0}", getPoolStats());
+        httpClient.close(CloseMode.GRACEFUL);
+        if (asyncTransport != null) {
+            asyncTransport.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.identicum.connectors;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+// Documento JSON Patch (RFC 6902) que DSpace acepta en PATCH de epersons y grupos.
+// Solo se añaden las operaciones de los atributos modificados.
+public final class JsonPatch {
+
+    public static final String CONTENT_TYPE = "application/json-patch+json";
+
+    private final JSONArray operations = new JSONArray();
+
+    public JsonPatch add(String path, Object value) {
+        operations.put(new JSONObject().put("op", "add").put("path", path).put("value", value));
+        return this;
+    }
+
+    public JsonPatch replace(String path, Object value) {
+        operations.put(new JSONObject().put("op", "replace").put("path", path).put("value", value));
+        return this;
+    }
+
+    public JsonPatch remove(String path) {
+        operations.put(new JSONObject().put("op", "remove").put("path", path));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    public int size() {
+        return operations.length();
+    }
+
+    @Override
+    public String toString() {
+        return operations.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+// Resuelve los grupos de cada eperson durante una búsqueda sin una llamada por usuario:
+// primero usa la proyección embed=groups que DSpace incluye en el listado y, para los
+// usuarios sin ella (o con la lista truncada), pide /epersons/{uuid}/groups en lotes
+// concurrentes. Los resultados se memorizan durante la búsqueda.
+public class MembershipResolver {
+
+    private static final Log LOG = Log.getLog(MembershipResolver.class);
+
+    private final ExecutorService executor;
+    private final int concurrency;
+    private final Function<String, List<String>> groupsFetcher;
+    private final Map<String, List<String>> memo = new ConcurrentHashMap<>();
+
+    public MembershipResolver(ExecutorService executor, int concurrency, Function<String, List<String>> groupsFetcher) {
+        this.executor = executor;
+        this.concurrency = concurrency;
+        this.groupsFetcher = groupsFetcher;
+    }
+
+    // UUIDs de los grupos embebidos en el eperson, o null si no vienen completos
+    public static List<String> embeddedGroups(JSONObject user) {
+        JSONObject embedded = user.optJSONObject("_embedded");
+        JSONObject groupsPage = embedded != null ? embedded.optJSONObject("groups") : null;
+        if (groupsPage == null) {
+            return null;
+        }
+        JSONObject groupsEmbedded = groupsPage.optJSONObject("_embedded");
+        JSONArray groups = groupsEmbedded != null ? groupsEmbedded.optJSONArray("groups") : null;
+        int count = groups != null ? groups.length() : 0;
+        JSONObject page = groupsPage.optJSONObject("page");
+        if (page != null && page.optLong("totalElements", 0) > count) {
+            return null;
+        }
+        List<String> uuids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            uuids.add(groups.getJSONObject(i).getString("uuid"));
+        }
+        return uuids;
+    }
+
+    // Lanza en paralelo (como mucho 'concurrency' peticiones a la vez) la resolución de los
+    // usuarios de la página que no traen sus grupos embebidos, y espera a que terminen.
+    public void prefetch(List<JSONObject> users) {
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        for (JSONObject user : users) {
+            String uuid = user.getString("uuid");
+            if (!memo.containsKey(uuid) && embeddedGroups(user) == null) {
+                pending.add(uuid);
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        LOG.ok("Fetching groups of {0} users without embedded memberships", pending.size());
+
+        int workers = Math.min(concurrency, pending.size());
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            futures[i] = CompletableFuture.runAsync(() -> {
+                String uuid;
+                while ((uuid = pending.poll()) != null) {
+                    memo.put(uuid, groupsFetcher.apply(uuid));
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorException("Error fetching group memberships", e.getCause());
+        }
+    }
+
+    // Grupos del eperson: embebidos, memorizados o, en último caso, pedidos en el momento
+    public List<String> groupsOf(JSONObject user) {
+        List<String> embedded = embeddedGroups(user);
+        if (embedded != null) {
+            return embedded;
+        }
+        return memo.computeIfAbsent(user.getString("uuid"), groupsFetcher);
+    }
+}
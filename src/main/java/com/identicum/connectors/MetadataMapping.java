@@ -0,0 +1,266 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConfigurationException;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Tabla de correspondencia entre campos de metadatos de DSpace y atributos del conector.
+// Se construye una vez por conector a partir de la configuración (metadataMappings) y permite
+// decodificar el objeto `metadata` de un eperson en una sola pasada.
+//
+// Formato de cada entrada: [atributo=]campo[:tipo][:multi]
+//   eperson.firstname
+//   eperson.license.accepteddate:date
+//   subjects=dc.subject:string:multi
+// Tipos admitidos: string (por defecto), boolean, integer, date.
+public final class MetadataMapping {
+
+    private static final Log LOG = Log.getLog(MetadataMapping.class);
+
+    public static final String[] DEFAULT_MAPPINGS = {
+            RestUsersConnector.ATTR_FIRST_NAME,
+            RestUsersConnector.ATTR_LAST_NAME,
+            RestUsersConnector.ATTR_ALERT_EMBARGO,
+            RestUsersConnector.ATTR_LANGUAGE,
+            RestUsersConnector.ATTR_LICENSE_ACCEPTED,
+            RestUsersConnector.ATTR_LICENSE_ACCEPTED_DATE,
+            RestUsersConnector.ATTR_ORCID_SCOPE,
+            RestUsersConnector.ATTR_ORCID,
+            RestUsersConnector.ATTR_PHONE
+    };
+
+    // ==============================
+    // Tipos de valor
+    // ==============================
+    public enum ValueType {
+        STRING(String.class),
+        BOOLEAN(Boolean.class),
+        INTEGER(Integer.class),
+        DATE(ZonedDateTime.class);
+
+        private final Class<?> javaType;
+
+        ValueType(Class<?> javaType) {
+            this.javaType = javaType;
+        }
+
+        public Class<?> getJavaType() {
+            return javaType;
+        }
+
+        Object parse(String value) {
+            switch (this) {
+                case BOOLEAN:
+                    return Boolean.valueOf(value.trim());
+                case INTEGER:
+                    return Integer.valueOf(value.trim());
+                case DATE:
+                    return parseDate(value.trim());
+                default:
+                    return value;
+            }
+        }
+
+        String format(Object value) {
+            if (value instanceof ZonedDateTime) {
+                return ((ZonedDateTime) value).toOffsetDateTime().toString();
+            }
+            return String.valueOf(value);
+        }
+
+        private static ZonedDateTime parseDate(String value) {
+            try {
+                return ZonedDateTime.parse(value);
+            } catch (DateTimeParseException e) {
+                try {
+                    return OffsetDateTime.parse(value).toZonedDateTime();
+                } catch (DateTimeParseException e2) {
+                    return LocalDate.parse(value).atStartOfDay(ZoneOffset.UTC);
+                }
+            }
+        }
+    }
+
+    // ==============================
+    // Campo mapeado
+    // ==============================
+    public static final class MappedField {
+        private final String attribute;
+        private final String field;
+        private final ValueType type;
+        private final boolean multiValued;
+
+        private MappedField(String attribute, String field, ValueType type, boolean multiValued) {
+            this.attribute = attribute;
+            this.field = field;
+            this.type = type;
+            this.multiValued = multiValued;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public ValueType getType() {
+            return type;
+        }
+
+        public boolean isMultiValued() {
+            return multiValued;
+        }
+
+        // Valores DSpace ([{"value": ...}, ...]) a partir de los valores del atributo
+        public JSONArray toMetadataValues(List<Object> values) {
+            JSONArray array = new JSONArray();
+            if (values != null) {
+                for (Object value : values) {
+                    if (value != null) {
+                        array.put(new JSONObject().put("value", type.format(value)));
+                    }
+                }
+            }
+            return array;
+        }
+    }
+
+    private final Map<String, MappedField> byField;
+    private final Map<String, MappedField> byAttribute;
+
+    private MetadataMapping(Map<String, MappedField> byField, Map<String, MappedField> byAttribute) {
+        this.byField = byField;
+        this.byAttribute = byAttribute;
+    }
+
+    // ==============================
+    // Construcción desde la configuración
+    // ==============================
+    public static MetadataMapping parse(String[] definitions) {
+        return parse(definitions, Collections.emptyList());
+    }
+
+    // Con los campos descubiertos en el registro de DSpace (schemaDiscovery): los que no estén
+    // ya en la configuración se añaden como texto multivaluado con el nombre del campo, porque
+    // el registro no dice ni el tipo ni cuántos valores admite y así no se pierde ninguno
+    public static MetadataMapping parse(String[] definitions, Collection<String> discoveredFields) {
+        Map<String, MappedField> byField = new HashMap<>();
+        Map<String, MappedField> byAttribute = new LinkedHashMap<>();
+        if (definitions != null) {
+            for (String definition : definitions) {
+                if (definition == null || definition.isBlank()) {
+                    continue;
+                }
+                MappedField mappedField = parseDefinition(definition.trim());
+                if (byField.put(mappedField.field, mappedField) != null) {
+                    throw new ConfigurationException("Campo de metadatos duplicado en metadataMappings: " + mappedField.field);
+                }
+                if (byAttribute.put(mappedField.attribute, mappedField) != null) {
+                    throw new ConfigurationException("Atributo duplicado en metadataMappings: " + mappedField.attribute);
+                }
+            }
+        }
+        for (String field : discoveredFields) {
+            if (!byField.containsKey(field) && !byAttribute.containsKey(field)) {
+                MappedField mappedField = new MappedField(field, field, ValueType.STRING, true);
+                byField.put(field, mappedField);
+                byAttribute.put(field, mappedField);
+            }
+        }
+        return new MetadataMapping(byField, Collections.unmodifiableMap(byAttribute));
+    }
+
+    private static MappedField parseDefinition(String definition) {
+        String[] parts = definition.split(":");
+        String target = parts[0].trim();
+        int equals = target.indexOf('=');
+        String attribute = equals >= 0 ? target.substring(0, equals).trim() : target;
+        String field = equals >= 0 ? target.substring(equals + 1).trim() : target;
+        if (attribute.isEmpty() || field.isEmpty()) {
+            throw new ConfigurationException("Entrada de metadataMappings no válida: " + definition);
+        }
+
+        ValueType type = ValueType.STRING;
+        boolean multiValued = false;
+        for (int i = 1; i < parts.length; i++) {
+            String option = parts[i].trim().toLowerCase(Locale.ROOT);
+            if ("multi".equals(option)) {
+                multiValued = true;
+                continue;
+            }
+            try {
+                type = ValueType.valueOf(option.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new ConfigurationException("Tipo desconocido '" + option + "' en metadataMappings: " + definition);
+            }
+        }
+        return new MappedField(attribute, field, type, multiValued);
+    }
+
+    // ==============================
+    // Consulta de la tabla
+    // ==============================
+    public Collection<MappedField> getFields() {
+        return byAttribute.values();
+    }
+
+    public MappedField forAttribute(String attribute) {
+        return byAttribute.get(attribute);
+    }
+
+    public Collection<String> getAttributeNames() {
+        return byAttribute.keySet();
+    }
+
+    // ==============================
+    // Decodificación en una sola pasada
+    // ==============================
+    // Recorre el objeto `metadata` una vez y añade al builder los campos mapeados y seleccionados
+    public void decode(JSONObject metadata, AttributeSelection attributes, ConnectorObjectBuilder builder) {
+        for (String field : metadata.keySet()) {
+            MappedField mappedField = byField.get(field);
+            if (mappedField == null || !attributes.includes(mappedField.attribute)) {
+                continue;
+            }
+            JSONArray values = metadata.optJSONArray(field);
+            if (values == null || values.isEmpty()) {
+                continue;
+            }
+            int count = mappedField.multiValued ? values.length() : 1;
+            List<Object> converted = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                JSONObject entry = values.optJSONObject(i);
+                String value = entry != null ? entry.optString("value", null) : null;
+                if (value == null) {
+                    continue;
+                }
+                try {
+                    converted.add(mappedField.type.parse(value));
+                } catch (RuntimeException e) {
+                    LOG.warn("Ignoring value of {0} that is not a valid {1}: {2}", field, mappedField.type, value);
+                }
+            }
+            if (!converted.isEmpty()) {
+                builder.addAttribute(mappedField.attribute, converted);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.logging.Log;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Campos del esquema de metadatos `eperson` registrados en DSpace
+// (/server/api/core/metadatafields/search/bySchema). Se leen una vez por servicio y se
+// revalidan con If-None-Match: mientras DSpace responda 304 no se descarga ni se decodifica
+// nada y se devuelve la misma instancia de Fields, así quien construyó algo a partir de ella
+// (la tabla de metadatos, el esquema) sabe que no tiene que rehacerlo.
+public final class MetadataRegistry {
+
+    private static final Log LOG = Log.getLog(MetadataRegistry.class);
+
+    public static final String SCHEMA = "eperson";
+
+    // Tras un fallo no se vuelve a intentar la carga desde las operaciones hasta pasado este tiempo
+    private static final long RETRY_AFTER_FAILURE_MS = 60 * 1000L;
+
+    private static final Map<String, MetadataRegistry> REGISTRIES = new ConcurrentHashMap<>();
+
+    // ==============================
+    // Páginas del registro
+    // ==============================
+
+    // Página tal como llega de DSpace, o 304 si no cambió respecto a la ETag enviada
+    public static final class Page {
+        static final Page NOT_MODIFIED = new Page(null, Collections.emptyList(), -1);
+
+        private final String etag;
+        private final List<String> fields;
+        private final int totalPages;
+
+        private Page(String etag, List<String> fields, int totalPages) {
+            this.etag = etag;
+            this.fields = fields;
+            this.totalPages = totalPages;
+        }
+
+        // Página HAL de metadatafields: esquema.elemento[.cualificador]
+        static Page parse(JSONObject body, String etag) {
+            List<String> fields = new ArrayList<>();
+            JSONObject embedded = body != null ? body.optJSONObject("_embedded") : null;
+            JSONArray entries = embedded != null ? embedded.optJSONArray("metadatafields") : null;
+            if (entries != null) {
+                for (int i = 0; i < entries.length(); i++) {
+                    JSONObject entry = entries.optJSONObject(i);
+                    String element = entry != null ? entry.optString("element", null) : null;
+                    if (element == null || element.isEmpty()) {
+                        continue;
+                    }
+                    String qualifier = entry.isNull("qualifier") ? null : entry.optString("qualifier", null);
+                    fields.add(SCHEMA + "." + element + (qualifier != null && !qualifier.isEmpty() ? "." + qualifier : ""));
+                }
+            }
+            JSONObject page = body != null ? body.optJSONObject("page") : null;
+            return new Page(etag, fields, page != null ? page.optInt("totalPages", 1) : 1);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PageLoader {
+        // etag es null si la página no se había leído antes
+        Page load(int page, String etag);
+    }
+
+    // Contenido del registro por páginas, inmutable
+    public static final class Fields {
+        private final List<List<String>> pages;
+        private final List<String> names;
+
+        private Fields(List<List<String>> pages) {
+            this.pages = pages;
+            List<String> names = new ArrayList<>();
+            pages.forEach(names::addAll);
+            this.names = Collections.unmodifiableList(names);
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+    }
+
+    private final String serviceAddress;
+    private volatile Fields fields;
+    // ETag de cada página de `fields`; solo se usa dentro de refresh
+    private List<String> etags = Collections.emptyList();
+    private volatile long failedAt;
+
+    private MetadataRegistry(String serviceAddress) {
+        this.serviceAddress = serviceAddress;
+    }
+
+    public static MetadataRegistry forService(String serviceAddress) {
+        return REGISTRIES.computeIfAbsent(serviceAddress, MetadataRegistry::new);
+    }
+
+    // ==============================
+    // Lectura y revalidación
+    // ==============================
+
+    // Campos conocidos sin preguntar a DSpace; solo se cargan si aún no se leyeron (y no hubo
+    // un fallo reciente). null si no están disponibles. Camino rápido de las operaciones.
+    public Fields current(PageLoader loader) {
+        Fields current = fields;
+        if (current != null || System.currentTimeMillis() - failedAt < RETRY_AFTER_FAILURE_MS) {
+            return current;
+        }
+        return refresh(loader, false);
+    }
+
+    // Con revalidate pregunta a DSpace si el registro cambió (petición condicional por página).
+    // Si falla se conserva lo que hubiera: el esquema no deja de funcionar por el registro.
+    public synchronized Fields refresh(PageLoader loader, boolean revalidate) {
+        Fields current = fields;
+        if (current != null && !revalidate) {
+            return current;
+        }
+        try {
+            List<String> loadedEtags = new ArrayList<>();
+            Fields loaded = load(loader, current, etags, loadedEtags);
+            if (loaded != current) {
+                LOG.ok("Metadata registry of {0} loaded: {1} {2} field(s)", serviceAddress, loaded.names.size(), SCHEMA);
+            }
+            fields = loaded;
+            etags = loadedEtags;
+            failedAt = 0;
+            return loaded;
+        } catch (RuntimeException e) {
+            failedAt = System.currentTimeMillis();
+            LOG.warn("Cannot read the {0} metadata registry from {1}, only metadataMappings are used: {2}",
+                    SCHEMA, serviceAddress, e.getMessage());
+            return current;
+        }
+    }
+
+    // Devuelve la misma instancia si el contenido no cambió; deja en loadedEtags las nuevas ETag
+    private static Fields load(PageLoader loader, Fields current, List<String> etags, List<String> loadedEtags) {
+        List<List<String>> pages = new ArrayList<>();
+        boolean modified = current == null;
+        // Un cambio en el número de campos altera la primera página (totalElements), así
+        // que un 304 en ella garantiza que el número de páginas sigue siendo el mismo
+        int totalPages = current != null ? current.pages.size() : 1;
+        for (int page = 0; page < totalPages; page++) {
+            boolean cached = current != null && page < current.pages.size();
+            String etag = cached && page < etags.size() ? etags.get(page) : null;
+            Page loaded = loader.load(page, etag);
+            if (loaded == Page.NOT_MODIFIED && cached) {
+                pages.add(current.pages.get(page));
+                loadedEtags.add(etag);
+                continue;
+            }
+            // Sin ETag (o con otra y el mismo contenido) lo que cuenta es la lista de campos
+            if (!cached || !loaded.fields.equals(current.pages.get(page))) {
+                modified = true;
+            }
+            pages.add(Collections.unmodifiableList(loaded.fields));
+            loadedEtags.add(loaded.etag);
+            totalPages = Math.max(1, loaded.totalPages);
+        }
+        return modified || pages.size() != current.pages.size() ? new Fields(pages) : current;
+    }
+}
@@ -0,0 +1,133 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Caché en memoria de epersons ya convertidos, por uuid, para las lecturas por UID que
+// midPoint repite durante una misma tarea. Acotada en tamaño (LRU) y en tiempo (TTL); las
+// escrituras del conector invalidan las entradas afectadas. Se comparte entre todas las
+// instancias del pool que apuntan al mismo servicio con el mismo usuario (como
+// SessionRegistry y AdaptiveLimiter), así una escritura hecha por cualquiera de ellas
+// invalida lo que leen las demás.
+public final class ObjectCache {
+
+    private static final Map<String, ObjectCache> CACHES = new ConcurrentHashMap<>();
+
+    // Instantánea de los contadores, p.ej. para test() o para dimensionar la caché
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        private Stats(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return "[hits: " + hits + "; misses: " + misses + "; evictions: " + evictions + "; size: " + size + "]";
+        }
+    }
+
+    // El objeto se guarda junto con los atributos con los que se convirtió
+    private static final class Entry {
+        private final ConnectorObject object;
+        private final AttributeSelection attributes;
+        private final long expiresAt;
+
+        private Entry(ConnectorObject object, AttributeSelection attributes, long expiresAt) {
+            this.object = object;
+            this.attributes = attributes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private volatile long ttlNanos;
+    private volatile int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ObjectCache(int maxEntries, long ttlSeconds) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+        // accessOrder = true: la entrada menos usada recientemente es la primera en salir
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > ObjectCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Caché del servicio y usuario; tamaño y TTL siguen a la última configuración (las
+    // entradas ya guardadas conservan su caducidad y el exceso sale con las siguientes altas)
+    public static ObjectCache forService(String serviceAddress, String username, int maxEntries, long ttlSeconds) {
+        ObjectCache cache = CACHES.computeIfAbsent(serviceAddress + "|" + username,
+                key -> new ObjectCache(maxEntries, ttlSeconds));
+        cache.maxEntries = maxEntries;
+        cache.ttlNanos = ttlSeconds * 1_000_000_000L;
+        return cache;
+    }
+
+    // null si no está, ha caducado o se convirtió con otra selección de atributos
+    public synchronized ConnectorObject get(String uuid, AttributeSelection attributes) {
+        Entry entry = entries.get(uuid);
+        if (entry == null || !entry.attributes.equals(attributes)) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt > 0) {
+            entries.remove(uuid);
+            evictions++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.object;
+    }
+
+    public synchronized void put(String uuid, AttributeSelection attributes, ConnectorObject object) {
+        entries.put(uuid, new Entry(object, attributes, System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(String uuid) {
+        entries.remove(uuid);
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size());
+    }
+}
@@ -0,0 +1,157 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.HalPageReader.HalPage;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+// Recorre un listado paginado entregando sus elementos al consumidor.
+// Con depth > 0 descarga en segundo plano las páginas siguientes mientras el ResultsHandler
+// procesa la actual; el buffer acotado (depth páginas ya decodificadas) frena al productor
+// cuando el consumidor es más lento que DSpace. Con depth = 0 cada elemento pasa del stream
+// de la respuesta al consumidor según se decodifica.
+public class PagePrefetcher<T> implements AutoCloseable {
+
+    private static final Log LOG = Log.getLog(PagePrefetcher.class);
+
+    // Descarga la página indicada entregando cada elemento a sink (false = detener)
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        HalPage load(int page, Predicate<T> sink);
+    }
+
+    // Página decodificada en espera dentro del buffer
+    private static final class Chunk<T> {
+        private final List<T> items;
+        private final HalPage page;
+
+        private Chunk(List<T> items, HalPage page) {
+            this.items = items;
+            this.page = page;
+        }
+    }
+
+    // Marca de fin de listado en el buffer
+    private static final Object END = new Object();
+
+    private final PageLoader<T> loader;
+    private final int firstPage;
+    private final int maxPages;
+    private final BlockingQueue<Object> buffer;
+    private final Future<?> producer;
+    private volatile boolean cancelled;
+
+    public PagePrefetcher(ExecutorService executor, PageLoader<T> loader, int firstPage, int maxPages, int depth) {
+        this.loader = loader;
+        this.firstPage = firstPage;
+        this.maxPages = maxPages;
+        if (depth > 0 && maxPages > 1) {
+            this.buffer = new ArrayBlockingQueue<>(depth);
+            this.producer = executor.submit(this::produce);
+        } else {
+            this.buffer = null;
+            this.producer = null;
+        }
+    }
+
+    // ==============================
+    // Consumidor
+    // ==============================
+
+    // Entrega los elementos en orden hasta que se acaban o el consumidor devuelve false.
+    // Devuelve la última página leída (null si no se leyó ninguna).
+    public HalPage forEach(Predicate<T> consumer) {
+        return buffer == null ? forEachInline(consumer) : forEachBuffered(consumer);
+    }
+
+    private HalPage forEachInline(Predicate<T> consumer) {
+        HalPage page = null;
+        for (int loaded = 0; loaded < maxPages; loaded++) {
+            page = loader.load(firstPage + loaded, consumer);
+            if (!page.hasNext()) {
+                break;
+            }
+        }
+        return page;
+    }
+
+    @SuppressWarnings("unchecked")
+    private HalPage forEachBuffered(Predicate<T> consumer) {
+        HalPage page = null;
+        while (true) {
+            Object item;
+            try {
+                item = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConnectorException("Interrupted while waiting for the next page", e);
+            }
+            if (item == END) {
+                return page;
+            }
+            if (item instanceof RuntimeException) {
+                throw (RuntimeException) item;
+            }
+            if (item instanceof Throwable) {
+                throw new ConnectorException("Error fetching page", (Throwable) item);
+            }
+            Chunk<T> chunk = (Chunk<T>) item;
+            page = chunk.page;
+            for (T element : chunk.items) {
+                if (!consumer.test(element)) {
+                    return page;
+                }
+            }
+        }
+    }
+
+    // ==============================
+    // Productor en segundo plano
+    // ==============================
+
+    // Cada página se lee completa antes de encolarla, para no retener la conexión HTTP
+    // mientras el buffer está lleno.
+    private void produce() {
+        try {
+            for (int loaded = 0; loaded < maxPages && !cancelled; loaded++) {
+                List<T> items = new ArrayList<>();
+                HalPage page = loader.load(firstPage + loaded, items::add);
+                buffer.put(new Chunk<>(items, page));
+                if (!page.hasNext()) {
+                    break;
+                }
+            }
+            if (!cancelled) {
+                buffer.put(END);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            if (!cancelled) {
+                try {
+                    buffer.put(t);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Cancela la descarga pendiente, p.ej. cuando handler.handle() devuelve false
+    @Override
+    public void close() {
+        if (producer != null && !producer.isDone()) {
+            cancelled = true;
+            producer.cancel(true);
+            buffer.clear();
+            LOG.ok("Page prefetch cancelled");
+        }
+    }
+}
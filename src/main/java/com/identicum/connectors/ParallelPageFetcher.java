@@ -0,0 +1,228 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.HalPageReader.HalPage;
+import com.identicum.connectors.PagePrefetcher.PageLoader;
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// Recorre un listado completo descargando varias páginas a la vez. La primera página da
+// page.totalPages; el resto son peticiones page=N independientes, con como mucho
+// `concurrency` páginas en vuelo o a la espera del consumidor (memoria acotada).
+//
+// - ordered: se entregan en orden de página (una página lenta retiene a las siguientes)
+// - unordered: se entregan según llegan
+//
+// DSpace pagina por offset, así que un alta o baja durante el recorrido desplaza los
+// elementos: unos aparecen dos veces y otros en ninguna página. Los repetidos se descartan
+// por clave (uuid) y, si se detecta deriva (cambia totalElements, hay repetidos o el total
+// no cuadra), se hace una segunda pasada entregando solo los elementos aún no vistos.
+public class ParallelPageFetcher<T> implements AutoCloseable {
+
+    private static final Log LOG = Log.getLog(ParallelPageFetcher.class);
+
+    // Pasadas extra como mucho; si el listado sigue cambiando se avisa y se termina
+    private static final int MAX_RESCANS = 1;
+
+    // Página ya descargada y decodificada
+    private static final class Chunk<T> {
+        private final int number;
+        private final List<T> items;
+        private final HalPage page;
+
+        private Chunk(int number, List<T> items, HalPage page) {
+            this.number = number;
+            this.items = items;
+            this.page = page;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final PageLoader<T> loader;
+    private final Function<T, String> keyOf;
+    private final int concurrency;
+    private final boolean ordered;
+    private final List<Future<Chunk<T>>> pending = new ArrayList<>();
+
+    // Claves entregadas en cualquier pasada y claves leídas en la pasada actual
+    private final Set<String> seen = new HashSet<>();
+    private final Set<String> passSeen = new HashSet<>();
+    private long expectedTotal = -1;
+    private boolean drift;
+    private int duplicates;
+
+    public ParallelPageFetcher(ExecutorService executor, PageLoader<T> loader, Function<T, String> keyOf,
+                               int concurrency, boolean ordered) {
+        this.executor = executor;
+        this.loader = loader;
+        this.keyOf = keyOf;
+        this.concurrency = Math.max(1, concurrency);
+        this.ordered = ordered;
+    }
+
+    // ==============================
+    // Consumidor
+    // ==============================
+
+    // Entrega cada elemento una sola vez hasta que se acaban o el consumidor devuelve false.
+    // Devuelve la última página leída.
+    public HalPage forEach(Predicate<T> consumer) {
+        HalPage last = null;
+        for (int pass = 0; pass <= MAX_RESCANS; pass++) {
+            drift = false;
+            duplicates = 0;
+            passSeen.clear();
+            int seenBefore = seen.size();
+            last = scan(consumer);
+            if (last == null) {
+                return null;
+            }
+            // El consumidor se detuvo: no se comprueba nada más
+            if (last.isStopped()) {
+                return last;
+            }
+            long total = last.getTotalElements();
+            if (!drift && duplicates == 0 && (total < 0 || passSeen.size() == total)) {
+                return last;
+            }
+            LOG.warn("Listing changed during parallel scan (pass {0}: {1} new, {2} duplicates, {3} seen, totalElements {4})",
+                    pass + 1, seen.size() - seenBefore, duplicates, passSeen.size(), total);
+        }
+        LOG.warn("Listing still changing after {0} rescan(s), finishing with {1} elements", MAX_RESCANS, seen.size());
+        return last;
+    }
+
+    // Una pasada completa; devuelve la última página leída (marcada como detenida si el
+    // consumidor pidió parar)
+    private HalPage scan(Predicate<T> consumer) {
+        Chunk<T> first = load(0);
+        expectedTotal = first.page.getTotalElements();
+        HalPage last = first.page;
+        if (!deliver(first, consumer)) {
+            return last;
+        }
+        int totalPages = first.page.getTotalPages();
+        if (!first.page.hasNext()) {
+            return last;
+        }
+
+        CompletionService<Chunk<T>> completion = new ExecutorCompletionService<>(executor);
+        ArrayDeque<Future<Chunk<T>>> inOrder = new ArrayDeque<>();
+        int nextPage = 1;
+        // Páginas anunciadas en la primera respuesta; si el listado creció se sigue después
+        // secuencialmente mientras haya _links.next
+        int plannedPages = totalPages > 0 ? totalPages : 1;
+        try {
+            while (nextPage < plannedPages && pending.size() < concurrency) {
+                submit(completion, inOrder, nextPage++);
+            }
+            while (!pending.isEmpty()) {
+                Future<Chunk<T>> done = ordered ? inOrder.poll() : completion.take();
+                Chunk<T> chunk = await(done);
+                pending.remove(done);
+                if (last == null || chunk.number >= last.getNumber()) {
+                    last = chunk.page;
+                }
+                if (!deliver(chunk, consumer)) {
+                    return chunk.page;
+                }
+                if (nextPage < plannedPages) {
+                    submit(completion, inOrder, nextPage++);
+                }
+            }
+            // Páginas añadidas por altas durante el recorrido
+            while (last.hasNext() && last.getNumber() + 1 >= plannedPages) {
+                drift |= totalPages > 0;
+                Chunk<T> extra = load(last.getNumber() + 1);
+                last = extra.page;
+                if (!deliver(extra, consumer)) {
+                    return last;
+                }
+            }
+            return last;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConnectorException("Interrupted while waiting for a page", e);
+        } finally {
+            close();
+        }
+    }
+
+    // En modo ordenado no se usa la cola de completadas: retendría las páginas ya entregadas
+    private void submit(CompletionService<Chunk<T>> completion, ArrayDeque<Future<Chunk<T>>> inOrder, int number) {
+        if (ordered) {
+            Future<Chunk<T>> future = executor.submit(() -> load(number));
+            pending.add(future);
+            inOrder.add(future);
+        } else {
+            pending.add(completion.submit(() -> load(number)));
+        }
+    }
+
+    private Chunk<T> load(int number) {
+        List<T> items = new ArrayList<>();
+        HalPage page = loader.load(number, items::add);
+        return new Chunk<>(number, items, page);
+    }
+
+    private Chunk<T> await(Future<Chunk<T>> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ConnectorException("Error fetching page", e.getCause());
+        } catch (CancellationException e) {
+            throw new ConnectorException("Page fetch cancelled", e);
+        }
+    }
+
+    // Entrega los elementos no vistos; false si el consumidor pidió parar
+    private boolean deliver(Chunk<T> chunk, Predicate<T> consumer) {
+        if (expectedTotal >= 0 && chunk.page.getTotalElements() != expectedTotal) {
+            drift = true;
+        }
+        for (T item : chunk.items) {
+            String key = keyOf.apply(item);
+            if (!passSeen.add(key)) {
+                duplicates++;
+                continue;
+            }
+            // Ya entregado en una pasada anterior
+            if (!seen.add(key)) {
+                continue;
+            }
+            if (!consumer.test(item)) {
+                chunk.page.stop();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Cancela las descargas pendientes, p.ej. cuando handler.handle() devuelve false
+    @Override
+    public void close() {
+        if (!pending.isEmpty()) {
+            for (Future<Chunk<T>> future : pending) {
+                future.cancel(true);
+            }
+            LOG.ok("Parallel page fetch cancelled, {0} pages pending", pending.size());
+            pending.clear();
+        }
+    }
+}
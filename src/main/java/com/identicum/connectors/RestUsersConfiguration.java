@@ -9,10 +9,35 @@ import org.identityconnectors.framework.common.exceptions.ConfigurationException
 @ConfigurationClass(skipUnsupported = false)
 public class RestUsersConfiguration extends AbstractRestConfiguration {
 
+    public static final String HTTP_TRANSPORT_CLASSIC = "classic";
+    public static final String HTTP_TRANSPORT_HTTP2 = "http2";
+
     private Boolean trustAllCertificates = false;
     private String serviceAddress;
     private String username;
     private GuardedString password;
+    private Integer maxConnectionsPerRoute = 20;
+    private Integer maxConnectionsTotal = 40;
+    private Integer connectTimeout = 10000;
+    private Integer socketTimeout = 60000;
+    private Integer connectionRequestTimeout = 30000;
+    private Integer keepAliveTimeout = 30000;
+    private Integer idleConnectionTimeout = 60000;
+    private Integer pageSize = 100;
+    private Integer prefetchPages = 1;
+    private String[] metadataMappings = MetadataMapping.DEFAULT_MAPPINGS.clone();
+    private Integer membershipFetchConcurrency = 8;
+    private String syncStateFile;
+    private Boolean cacheEnabled = false;
+    private Integer cacheMaxEntries = 1000;
+    private Integer cacheTtlSeconds = 60;
+    private Integer maxRetries = 3;
+    private Integer retryMaxDelay = 30000;
+    private Integer parallelPageFetches = 1;
+    private Boolean parallelPagesOrdered = true;
+    private Boolean schemaDiscovery = true;
+    private String httpTransport = HTTP_TRANSPORT_CLASSIC;
+    private Boolean conditionalRequests = true;
 
     @ConfigurationProperty(
         order = 1,
@@ -71,6 +96,292 @@ public class RestUsersConfiguration extends AbstractRestConfiguration {
         this.password = password;
     }
 
+    @ConfigurationProperty(
+        order = 5,
+        displayMessageKey = "rest.config.maxConnectionsPerRoute.display",
+        helpMessageKey = "rest.config.maxConnectionsPerRoute.help"
+    )
+    public Integer getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    @ConfigurationProperty(
+        order = 6,
+        displayMessageKey = "rest.config.maxConnectionsTotal.display",
+        helpMessageKey = "rest.config.maxConnectionsTotal.help"
+    )
+    public Integer getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    public void setMaxConnectionsTotal(Integer maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    @ConfigurationProperty(
+        order = 7,
+        displayMessageKey = "rest.config.connectTimeout.display",
+        helpMessageKey = "rest.config.connectTimeout.help"
+    )
+    public Integer getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Integer connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    @ConfigurationProperty(
+        order = 8,
+        displayMessageKey = "rest.config.socketTimeout.display",
+        helpMessageKey = "rest.config.socketTimeout.help"
+    )
+    public Integer getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    public void setSocketTimeout(Integer socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    @ConfigurationProperty(
+        order = 9,
+        displayMessageKey = "rest.config.connectionRequestTimeout.display",
+        helpMessageKey = "rest.config.connectionRequestTimeout.help"
+    )
+    public Integer getConnectionRequestTimeout() {
+        return connectionRequestTimeout;
+    }
+
+    public void setConnectionRequestTimeout(Integer connectionRequestTimeout) {
+        this.connectionRequestTimeout = connectionRequestTimeout;
+    }
+
+    @ConfigurationProperty(
+        order = 10,
+        displayMessageKey = "rest.config.keepAliveTimeout.display",
+        helpMessageKey = "rest.config.keepAliveTimeout.help"
+    )
+    public Integer getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    public void setKeepAliveTimeout(Integer keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+    }
+
+    @ConfigurationProperty(
+        order = 11,
+        displayMessageKey = "rest.config.idleConnectionTimeout.display",
+        helpMessageKey = "rest.config.idleConnectionTimeout.help"
+    )
+    public Integer getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    public void setIdleConnectionTimeout(Integer idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    @ConfigurationProperty(
+        order = 12,
+        displayMessageKey = "rest.config.pageSize.display",
+        helpMessageKey = "rest.config.pageSize.help"
+    )
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    @ConfigurationProperty(
+        order = 13,
+        displayMessageKey = "rest.config.prefetchPages.display",
+        helpMessageKey = "rest.config.prefetchPages.help"
+    )
+    public Integer getPrefetchPages() {
+        return prefetchPages;
+    }
+
+    public void setPrefetchPages(Integer prefetchPages) {
+        this.prefetchPages = prefetchPages;
+    }
+
+    @ConfigurationProperty(
+        order = 14,
+        displayMessageKey = "rest.config.metadataMappings.display",
+        helpMessageKey = "rest.config.metadataMappings.help"
+    )
+    public String[] getMetadataMappings() {
+        return metadataMappings;
+    }
+
+    public void setMetadataMappings(String[] metadataMappings) {
+        this.metadataMappings = metadataMappings;
+    }
+
+    @ConfigurationProperty(
+        order = 15,
+        displayMessageKey = "rest.config.membershipFetchConcurrency.display",
+        helpMessageKey = "rest.config.membershipFetchConcurrency.help"
+    )
+    public Integer getMembershipFetchConcurrency() {
+        return membershipFetchConcurrency;
+    }
+
+    public void setMembershipFetchConcurrency(Integer membershipFetchConcurrency) {
+        this.membershipFetchConcurrency = membershipFetchConcurrency;
+    }
+
+    @ConfigurationProperty(
+        order = 16,
+        displayMessageKey = "rest.config.syncStateFile.display",
+        helpMessageKey = "rest.config.syncStateFile.help"
+    )
+    public String getSyncStateFile() {
+        return syncStateFile;
+    }
+
+    public void setSyncStateFile(String syncStateFile) {
+        this.syncStateFile = syncStateFile;
+    }
+
+    @ConfigurationProperty(
+        order = 17,
+        displayMessageKey = "rest.config.cacheEnabled.display",
+        helpMessageKey = "rest.config.cacheEnabled.help"
+    )
+    public Boolean getCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    public void setCacheEnabled(Boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    @ConfigurationProperty(
+        order = 18,
+        displayMessageKey = "rest.config.cacheMaxEntries.display",
+        helpMessageKey = "rest.config.cacheMaxEntries.help"
+    )
+    public Integer getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public void setCacheMaxEntries(Integer cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    @ConfigurationProperty(
+        order = 19,
+        displayMessageKey = "rest.config.cacheTtlSeconds.display",
+        helpMessageKey = "rest.config.cacheTtlSeconds.help"
+    )
+    public Integer getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(Integer cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    @ConfigurationProperty(
+        order = 20,
+        displayMessageKey = "rest.config.maxRetries.display",
+        helpMessageKey = "rest.config.maxRetries.help"
+    )
+    public Integer getMaxRetries() {
+        return maxRetries;
+    }
+
+    public void setMaxRetries(Integer maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    @ConfigurationProperty(
+        order = 21,
+        displayMessageKey = "rest.config.retryMaxDelay.display",
+        helpMessageKey = "rest.config.retryMaxDelay.help"
+    )
+    public Integer getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    public void setRetryMaxDelay(Integer retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    @ConfigurationProperty(
+        order = 22,
+        displayMessageKey = "rest.config.parallelPageFetches.display",
+        helpMessageKey = "rest.config.parallelPageFetches.help"
+    )
+    public Integer getParallelPageFetches() {
+        return parallelPageFetches;
+    }
+
+    public void setParallelPageFetches(Integer parallelPageFetches) {
+        this.parallelPageFetches = parallelPageFetches;
+    }
+
+    @ConfigurationProperty(
+        order = 23,
+        displayMessageKey = "rest.config.parallelPagesOrdered.display",
+        helpMessageKey = "rest.config.parallelPagesOrdered.help"
+    )
+    public Boolean getParallelPagesOrdered() {
+        return parallelPagesOrdered;
+    }
+
+    public void setParallelPagesOrdered(Boolean parallelPagesOrdered) {
+        this.parallelPagesOrdered = parallelPagesOrdered;
+    }
+
+    @ConfigurationProperty(
+        order = 24,
+        displayMessageKey = "rest.config.schemaDiscovery.display",
+        helpMessageKey = "rest.config.schemaDiscovery.help"
+    )
+    public Boolean getSchemaDiscovery() {
+        return schemaDiscovery;
+    }
+
+    public void setSchemaDiscovery(Boolean schemaDiscovery) {
+        this.schemaDiscovery = schemaDiscovery;
+    }
+
+    @ConfigurationProperty(
+        order = 25,
+        displayMessageKey = "rest.config.httpTransport.display",
+        helpMessageKey = "rest.config.httpTransport.help"
+    )
+    public String getHttpTransport() {
+        return httpTransport;
+    }
+
+    public void setHttpTransport(String httpTransport) {
+        this.httpTransport = httpTransport;
+    }
+
+    @ConfigurationProperty(
+        order = 26,
+        displayMessageKey = "rest.config.conditionalRequests.display",
+        helpMessageKey = "rest.config.conditionalRequests.help"
+    )
+    public Boolean getConditionalRequests() {
+        return conditionalRequests;
+    }
+
+    public void setConditionalRequests(Boolean conditionalRequests) {
+        this.conditionalRequests = conditionalRequests;
+    }
+
     // ==============================
     // Bloque de Validación de Configuración
     // ==============================
@@ -92,6 +403,53 @@ public class RestUsersConfiguration extends AbstractRestConfiguration {
         if (trustAllCertificates == null) {
             trustAllCertificates = false;
         }
+        requirePositive(maxConnectionsPerRoute, "maxConnectionsPerRoute");
+        requirePositive(maxConnectionsTotal, "maxConnectionsTotal");
+        requirePositive(connectTimeout, "connectTimeout");
+        requirePositive(socketTimeout, "socketTimeout");
+        requirePositive(connectionRequestTimeout, "connectionRequestTimeout");
+        requirePositive(keepAliveTimeout, "keepAliveTimeout");
+        requirePositive(idleConnectionTimeout, "idleConnectionTimeout");
+        requirePositive(pageSize, "pageSize");
+        requirePositive(membershipFetchConcurrency, "membershipFetchConcurrency");
+        if (maxRetries == null || maxRetries < 0) {
+            throw new ConfigurationException("El parámetro maxRetries no puede ser negativo.");
+        }
+        requirePositive(retryMaxDelay, "retryMaxDelay");
+        requirePositive(parallelPageFetches, "parallelPageFetches");
+        if (parallelPagesOrdered == null) {
+            parallelPagesOrdered = true;
+        }
+        if (schemaDiscovery == null) {
+            schemaDiscovery = true;
+        }
+        if (httpTransport == null || httpTransport.isEmpty()) {
+            httpTransport = HTTP_TRANSPORT_CLASSIC;
+        }
+        if (!HTTP_TRANSPORT_CLASSIC.equals(httpTransport) && !HTTP_TRANSPORT_HTTP2.equals(httpTransport)) {
+            throw new ConfigurationException("El parámetro httpTransport debe ser '" + HTTP_TRANSPORT_CLASSIC
+                    + "' o '" + HTTP_TRANSPORT_HTTP2 + "'.");
+        }
+        if (cacheEnabled == null) {
+            cacheEnabled = false;
+        }
+        if (conditionalRequests == null) {
+            conditionalRequests = true;
+        }
+        if (cacheEnabled || conditionalRequests) {
+            requirePositive(cacheMaxEntries, "cacheMaxEntries");
+        }
+        if (cacheEnabled) {
+            requirePositive(cacheTtlSeconds, "cacheTtlSeconds");
+        }
+        if (prefetchPages == null || prefetchPages < 0) {
+            throw new ConfigurationException("El parámetro prefetchPages no puede ser negativo.");
+        }
+        // Lanza ConfigurationException si alguna entrada no es válida
+        MetadataMapping.parse(metadataMappings);
+        if (maxConnectionsTotal < maxConnectionsPerRoute) {
+            throw new ConfigurationException("maxConnectionsTotal no puede ser menor que maxConnectionsPerRoute.");
+        }
 
         // Validar que la URL del servicio es válida
         if (!serviceAddress.startsWith("http://") && !serviceAddress.startsWith("https://")) {
@@ -99,6 +457,12 @@ public class RestUsersConfiguration extends AbstractRestConfiguration {
         }
     }
 
+    private static void requirePositive(Integer value, String name) {
+        if (value == null || value <= 0) {
+            throw new ConfigurationException("El parámetro " + name + " debe ser un entero positivo.");
+        }
+    }
+
     // ==============================
     // Bloque de Métodos Adicionales
     // ==============================
@@ -1,37 +1,73 @@
 package com.identicum.connectors;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import org.apache.hc.client5.http.classic.methods.*;
+import org.apache.hc.client5.http.entity.DeflateDecompressingEntity;
+import org.apache.hc.client5.http.entity.GzipDecompressingEntity;
 import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.client5.http.impl.classic.*;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.Cookie;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.client5.http.utils.DateUtils;
 import org.apache.hc.core5.http.*;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
 import org.apache.hc.core5.http.io.entity.*;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.http.HttpEntityContainer;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.pool.PoolStats;
 import org.identityconnectors.common.logging.Log;
-import org.identityconnectors.common.security.GuardedString;
 import org.identityconnectors.framework.api.operations.TestApiOp;
 import org.identityconnectors.framework.common.exceptions.*;
 import org.identityconnectors.framework.common.objects.*;
 import org.identityconnectors.framework.spi.ConnectorClass;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
 import org.identityconnectors.framework.spi.operations.*;
 import org.identityconnectors.framework.common.objects.filter.FilterTranslator;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import com.evolveum.polygon.rest.AbstractRestConnector;
 import com.identicum.connectors.RestUsersConfiguration;
 import com.identicum.connectors.RestUsersFilter;
 import com.identicum.connectors.RestUsersFilterTranslator;
+import com.identicum.connectors.HalPageReader.HalPage;
+import com.identicum.connectors.MetadataMapping.MappedField;
 
 
 // ==============================
@@ -41,7 +77,7 @@ import com.identicum.connectors.RestUsersFilterTranslator;
 @ConnectorClass(displayNameKey = "connector.identicum.rest.display", configurationClass = RestUsersConfiguration.class)
 public class RestUsersConnector 
     extends AbstractRestConnector<RestUsersConfiguration>
-    implements CreateOp, UpdateOp, SchemaOp, SearchOp<RestUsersFilter>, DeleteOp, UpdateAttributeValuesOp, TestOp, TestApiOp {
+    implements CreateOp, UpdateOp, UpdateDeltaOp, SchemaOp, SearchOp<RestUsersFilter>, SyncOp, DeleteOp, UpdateAttributeValuesOp, TestOp, TestApiOp {
 
     private static final Log LOG = Log.getLog(RestUsersConnector.class);
 
@@ -52,6 +88,9 @@ public class RestUsersConnector
     // Endpoints para usuarios y roles
     private static final String USERS_ENDPOINT = "/server/api/eperson/epersons";
     private static final String ROLES_ENDPOINT = "/server/api/eperson/groups";
+    // Registro de campos de metadatos (schemaDiscovery); los de eperson caben en una página
+    private static final String METADATA_FIELDS_ENDPOINT = "/server/api/core/metadatafields/search/bySchema";
+    private static final int REGISTRY_PAGE_SIZE = 200;
 
     // ==============================
     // Bloque de Definición de Atributos
@@ -74,31 +113,247 @@ public class RestUsersConnector
     public static final String ATTR_ORCID_SCOPE = "eperson.orcid.scope";
     public static final String ATTR_ORCID = "eperson.orcid";
     public static final String ATTR_PHONE = "eperson.phone";
-
+    // UUIDs de los grupos del eperson (asociación con __GROUP__); solo se devuelve si se pide
+    public static final String ATTR_ROLES = "roles";
+
+    // Atributos de grupos de DSpace (__GROUP__); el nombre del grupo es __NAME__
+    public static final String ATTR_GROUP_DESCRIPTION = "description";
+    public static final String ATTR_GROUP_PERMANENT = "permanent";
+    // UUIDs de los epersons miembros; solo admite añadir y quitar valores
+    public static final String ATTR_GROUP_MEMBERS = "members";
+    private static final String GROUP_DESCRIPTION_FIELD = "dc.description";
+
+    private static final String NAME_EMAIL_MISMATCH =
+            "__NAME__ and email must have the same value: DSpace uses the email as the eperson name";
+
+    // Rutas JSON Patch de DSpace para los atributos directos modificables del eperson
+    private static final Map<String, String> PATCH_PATHS = Map.of(
+            ATTR_EMAIL, "/email",
+            ATTR_NET_ID, "/netid",
+            ATTR_CAN_LOG_IN, "/canLogin",
+            ATTR_REQUIRE_CERTIFICATE, "/certificate"
+    );
 
     // ==============================
     // Bloque de authManager y Autenticación
     // ==============================
 
-    // authManager para manejar la autenticación
+    // Tabla de atributos de metadatos, construida una vez por conector desde la configuración
+    // y, con schemaDiscovery, desde el registro de DSpace; se rehace solo si el registro cambia
+    private MetadataMapping metadataMapping;
+    private MetadataRegistry.Fields metadataMappingSource;
+
+    private MetadataMapping getMetadataMapping() {
+        MetadataRegistry.Fields discovered = Boolean.TRUE.equals(getConfiguration().getSchemaDiscovery())
+                ? getMetadataRegistry().current(this::loadRegistryPage)
+                : null;
+        if (metadataMapping == null || discovered != metadataMappingSource) {
+            metadataMapping = MetadataMapping.parse(getConfiguration().getMetadataMappings(),
+                    discovered != null ? discovered.getNames() : Collections.emptyList());
+            metadataMappingSource = discovered;
+        }
+        return metadataMapping;
+    }
+
+    // Registro de metadatos del DSpace, compartido por las instancias que apuntan a él
+    private MetadataRegistry metadataRegistry;
+
+    private MetadataRegistry getMetadataRegistry() {
+        if (metadataRegistry == null) {
+            metadataRegistry = MetadataRegistry.forService(getConfiguration().getServiceAddress());
+        }
+        return metadataRegistry;
+    }
+
+    // Una página del registro; con etag se pide de forma condicional y un 304 no trae cuerpo
+    private MetadataRegistry.Page loadRegistryPage(int page, String etag) {
+        String endpoint = getConfiguration().getServiceAddress() + METADATA_FIELDS_ENDPOINT + "?schema=" + MetadataRegistry.SCHEMA;
+        HttpGet request = new HttpGet(pageUri(endpoint, page, REGISTRY_PAGE_SIZE));
+        request.setHeader("Accept", "application/json");
+        if (etag != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        try {
+            return execute(request, response -> {
+                if (response.getCode() == HttpStatus.SC_NOT_MODIFIED) {
+                    return MetadataRegistry.Page.NOT_MODIFIED;
+                }
+                processResponseErrors(response);
+                Header etagHeader = response.getFirstHeader(HttpHeaders.ETAG);
+                String body = response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : null;
+                return MetadataRegistry.Page.parse(body != null && !body.isEmpty() ? new JSONObject(body) : null,
+                        etagHeader != null ? etagHeader.getValue() : null);
+            });
+        } catch (IOException e) {
+            throw new ConnectorException("Error reading the metadata registry", e);
+        }
+    }
+
+    // authManager para manejar la autenticación: sesión compartida con el resto de instancias
+    // del pool que usan el mismo servicio y usuario (SessionRegistry)
     private AuthManager authManager;
 
-    private void ensureAuthManagerInitialized() {
-        if (authManager == null) {
-            String password = getClearPassword(getConfiguration().getPassword());
+    // Cliente HTTP con pool de conexiones, compartido por callRequest y authManager
+    private HttpClientManager httpClientManager;
+
+    // Límite adaptativo de peticiones concurrentes, compartido por todas las instancias que
+    // apuntan al mismo DSpace
+    private AdaptiveLimiter limiter;
 
-            authManager = new AuthManager(
+    // Métricas del DSpace (JMX), compartidas igual que el limitador
+    private ConnectorMetrics metrics;
+
+    private synchronized void ensureAuthManagerInitialized() {
+        if (httpClientManager == null) {
+            httpClientManager = new HttpClientManager(getConfiguration());
+        }
+        if (limiter == null) {
+            limiter = AdaptiveLimiter.forService(getConfiguration().getServiceAddress(),
+                    getConfiguration().getMaxConnectionsPerRoute());
+        }
+        if (metrics == null) {
+            metrics = ConnectorMetrics.forService(getConfiguration().getServiceAddress());
+        }
+        if (authManager == null) {
+            authManager = SessionRegistry.acquire(
                     getConfiguration().getServiceAddress(),
                     getConfiguration().getUsername(),
-                    password
+                    getConfiguration().getPassword()
             );
         }
     }
 
-    private String getClearPassword(GuardedString guardedPassword) {
-        final StringBuilder passwordBuilder = new StringBuilder();
-        guardedPassword.access(clearChars -> passwordBuilder.append(new String(clearChars)));
-        return passwordBuilder.toString();
+    // Hilos de fondo para la descarga anticipada de páginas durante las búsquedas
+    private ExecutorService searchExecutor;
+
+    private synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            searchExecutor = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "dspace-connector-search-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
+
+    // Token de la sesión compartida; el login, si hace falta, usa el pool y los hilos de esta instancia
+    private String getJwtToken() {
+        ensureAuthManagerInitialized();
+        return authManager.getJwtToken(httpClientManager.getHttpClient(), getSearchExecutor());
+    }
+
+    // Logins realizados por la sesión compartida que usa esta instancia
+    public long getLoginCount() {
+        return authManager != null ? authManager.getLoginCount() : 0;
+    }
+
+    // Estadísticas del pool de conexiones (leased/pending/available/max) para dimensionarlo
+    public PoolStats getConnectionPoolStats() {
+        return httpClientManager != null ? httpClientManager.getPoolStats() : null;
+    }
+
+    // Límite de concurrencia adaptativo actual (limit/inFlight/overloads)
+    public AdaptiveLimiter getLimiter() {
+        return limiter;
+    }
+
+    // Latencias, bytes y errores del DSpace (también publicadas por JMX)
+    public ConnectorMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Mide la operación completa para las métricas, también cuando falla
+    private <T> T timed(ConnectorMetrics.Operation operation, Supplier<T> body) {
+        ensureAuthManagerInitialized();
+        ConnectorMetrics operationMetrics = metrics;
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = body.get();
+            failed = false;
+            return result;
+        } finally {
+            operationMetrics.record(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    // Caché de epersons leídos por UID (opcional, cacheEnabled), compartida con el resto del pool
+    private ObjectCache objectCache;
+
+    private synchronized ObjectCache getObjectCache() {
+        if (objectCache == null && Boolean.TRUE.equals(getConfiguration().getCacheEnabled())) {
+            objectCache = ObjectCache.forService(getConfiguration().getServiceAddress(), getConfiguration().getUsername(),
+                    getConfiguration().getCacheMaxEntries(), getConfiguration().getCacheTtlSeconds());
+        }
+        return objectCache;
+    }
+
+    // Aciertos, fallos y expulsiones de la caché; null si está desactivada
+    public ObjectCache.Stats getCacheStats() {
+        ObjectCache cache = getObjectCache();
+        return cache != null ? cache.getStats() : null;
+    }
+
+    private void invalidateCachedObject(String uuid) {
+        ObjectCache cache = getObjectCache();
+        if (cache != null) {
+            cache.invalidate(uuid);
+        }
+        invalidateConditionalReads(uuid);
+    }
+
+    // Validadores de lecturas anteriores (opcional, conditionalRequests), compartidos con el pool
+    private ConditionalReadCache conditionalReadCache;
+
+    private synchronized ConditionalReadCache getConditionalReadCache() {
+        if (conditionalReadCache == null && Boolean.TRUE.equals(getConfiguration().getConditionalRequests())) {
+            conditionalReadCache = ConditionalReadCache.forService(getConfiguration().getServiceAddress(),
+                    getConfiguration().getUsername(), getConfiguration().getCacheMaxEntries());
+        }
+        return conditionalReadCache;
+    }
+
+    // Respuestas 304 y lecturas guardadas; null si está desactivado
+    public ConditionalReadCache.Stats getConditionalReadStats() {
+        ConditionalReadCache cache = getConditionalReadCache();
+        return cache != null ? cache.getStats() : null;
+    }
+
+    // DSpace revalidaría igualmente, pero un Last-Modified con resolución de segundos no
+    // distingue dos cambios en el mismo segundo: tras escribir se descarta lo guardado
+    private void invalidateConditionalReads(String uuid) {
+        ConditionalReadCache cache = getConditionalReadCache();
+        if (cache != null) {
+            cache.invalidate(uuid);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (searchExecutor != null) {
+            searchExecutor.shutdownNow();
+            searchExecutor = null;
+        }
+        if (httpClientManager != null) {
+            httpClientManager.close();
+            httpClientManager = null;
+        }
+        if (authManager != null) {
+            SessionRegistry.release(authManager);
+            authManager = null;
+        }
+        limiter = null;
+        metrics = null;
+        metadataMapping = null;
+        metadataMappingSource = null;
+        metadataRegistry = null;
+        schema = null;
+        schemaSource = null;
+        objectCache = null;
+        conditionalReadCache = null;
+        super.dispose();
     }
 
     // ==============================
@@ -107,21 +362,20 @@ public class RestUsersConnector
 
     @Override
     public Uid create(ObjectClass objectClass, Set<Attribute> attributes, OperationOptions options) {
-      ensureAuthManagerInitialized();
+        return timed(ConnectorMetrics.Operation.CREATE, () -> createObject(objectClass, attributes));
+    }
+
+    private Uid createObject(ObjectClass objectClass, Set<Attribute> attributes) {
         LOG.ok("Entering create with ObjectClass: {0}", objectClass.getObjectClassValue());
 
+        if (objectClass.is(ObjectClass.GROUP_NAME)) {
+            return createGroup(attributes);
+        }
         if (!objectClass.is(ObjectClass.ACCOUNT_NAME)) {
             throw new UnsupportedOperationException("Create operation is not supported for object class: " + objectClass.getObjectClassValue());
         }
 
-        // Construir el objeto JSON con los atributos
-        JSONObject jsonObject = new JSONObject();
-        for (Attribute attr : attributes) {
-            String attrName = attr.getName();
-            Object attrValue = attr.getValue().get(0); // Asumiendo que es single-valued
-            jsonObject.put(attrName, attrValue);
-            LOG.ok("Added attribute {0}: {1}", attrName, attrValue);
-        }
+        JSONObject jsonObject = buildUserJson(attributes);
 
         // Realizar la solicitud HTTP POST
         String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT;
@@ -134,86 +388,412 @@ public class RestUsersConnector
         return new Uid(uidValue);
     }
 
-    @Override
-    public Uid update(ObjectClass objectClass, Uid uid, Set<Attribute> replaceAttributes, OperationOptions options) {
-      ensureAuthManagerInitialized();
-        LOG.ok("Entering update with ObjectClass: {0}, UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
-
-        if (!objectClass.is(ObjectClass.ACCOUNT_NAME)) {
-            throw new UnsupportedOperationException("Update operation is not supported for object class: " + objectClass.getObjectClassValue());
+    // Construir el objeto JSON con los atributos; los de metadatos van dentro de `metadata`.
+    // Visible en el paquete para los benchmarks (benchmarks/).
+    JSONObject buildUserJson(Set<Attribute> attributes) {
+        JSONObject jsonObject = new JSONObject();
+        JSONObject metadata = new JSONObject();
+        // En DSpace el nombre de un eperson es su email: __NAME__ se envía como email
+        Attribute name = AttributeUtil.find(Name.NAME, attributes);
+        Attribute email = AttributeUtil.find(ATTR_EMAIL, attributes);
+        if (name != null && email != null && !Objects.equals(name.getValue(), email.getValue())) {
+            throw new InvalidAttributeValueException(NAME_EMAIL_MISMATCH);
+        }
+        for (Attribute attr : attributes) {
+            String attrName = attr.getName();
+            MappedField mappedField = getMetadataMapping().forAttribute(attrName);
+            if (Name.NAME.equals(attrName)) {
+                if (email == null) {
+                    jsonObject.put(ATTR_EMAIL, AttributeUtil.getSingleValue(attr));
+                }
+            } else if (mappedField != null) {
+                metadata.put(mappedField.getField(), mappedField.toMetadataValues(attr.getValue()));
+            } else {
+                Object attrValue = attr.getValue().get(0); // Asumiendo que es single-valued
+                jsonObject.put(attrName, attrValue);
+            }
+            // Solo el nombre: los valores son datos personales (y a veces la contraseña)
+            LOG.ok("Added attribute {0}", attrName);
+        }
+        if (!metadata.isEmpty()) {
+            jsonObject.put("metadata", metadata);
         }
+        return jsonObject;
+    }
 
-        // Construir el objeto JSON con los atributos a actualizar
+    private Uid createGroup(Set<Attribute> attributes) {
         JSONObject jsonObject = new JSONObject();
-        for (Attribute attr : replaceAttributes) {
-            String attrName = attr.getName();
-            Object attrValue = attr.getValue().get(0); // Asumiendo que es single-valued
-            jsonObject.put(attrName, attrValue);
-            LOG.ok("Updating attribute {0}: {1}", attrName, attrValue);
+        JSONObject metadata = new JSONObject();
+        for (Attribute attr : attributes) {
+            if (Name.NAME.equals(attr.getName())) {
+                jsonObject.put("name", AttributeUtil.getStringValue(attr));
+            } else if (ATTR_GROUP_DESCRIPTION.equals(attr.getName())) {
+                metadata.put(GROUP_DESCRIPTION_FIELD,
+                        new JSONArray().put(new JSONObject().put("value", AttributeUtil.getStringValue(attr))));
+            } else {
+                throw new InvalidAttributeValueException("Attribute " + attr.getName() + " is not supported for groups");
+            }
+        }
+        if (!metadata.isEmpty()) {
+            jsonObject.put("metadata", metadata);
         }
 
-        // Realizar la solicitud HTTP PUT
-        String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT + "/" + uid.getUidValue();
-        HttpPut request = new HttpPut(endpoint);
-        JSONObject response = callRequest(request, jsonObject);
+        String endpoint = getConfiguration().getServiceAddress() + ROLES_ENDPOINT;
+        JSONObject response = callRequest(new HttpPost(endpoint), jsonObject);
 
-        // Retornar el UID actualizado
         String uidValue = response.getString("uuid");
-        LOG.ok("Updated user with UID: {0}", uidValue);
+        LOG.ok("Created group with UID: {0}", uidValue);
         return new Uid(uidValue);
     }
 
+    // Las actualizaciones por reemplazo se traducen a deltas y siguen el camino de updateDelta
+    @Override
+    public Uid update(ObjectClass objectClass, Uid uid, Set<Attribute> replaceAttributes, OperationOptions options) {
+        Set<AttributeDelta> modifications = new HashSet<>();
+        for (Attribute attr : replaceAttributes) {
+            modifications.add(AttributeDeltaBuilder.build(attr.getName(),
+                    attr.getValue() != null ? attr.getValue() : Collections.emptyList()));
+        }
+        updateDelta(objectClass, uid, modifications, options);
+        return uid;
+    }
+
     @Override
     public void delete(ObjectClass objectClass, Uid uid, OperationOptions options) {
-      ensureAuthManagerInitialized();
+        timed(ConnectorMetrics.Operation.DELETE, () -> {
+            deleteObject(objectClass, uid);
+            return null;
+        });
+    }
+
+    private void deleteObject(ObjectClass objectClass, Uid uid) {
         LOG.ok("Entering delete with ObjectClass: {0}, UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
 
-        if (!objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+        String objectEndpoint;
+        if (objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+            objectEndpoint = USERS_ENDPOINT;
+        } else if (objectClass.is(ObjectClass.GROUP_NAME)) {
+            objectEndpoint = ROLES_ENDPOINT;
+        } else {
             throw new UnsupportedOperationException("Delete operation is not supported for object class: " + objectClass.getObjectClassValue());
         }
 
         // Realizar la solicitud HTTP DELETE
-        String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT + "/" + uid.getUidValue();
+        String endpoint = getConfiguration().getServiceAddress() + objectEndpoint + "/" + uid.getUidValue();
         HttpDelete request = new HttpDelete(endpoint);
         try {
             String response = callRequest(request);
-            LOG.ok("Deleted user with UID: {0}", uid.getUidValue());
+            LOG.ok("Deleted {0} with UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
+        } catch (UnknownUidException e) {
+            throw e;
         } catch (Exception e) {
-            LOG.error("Error deleting user", e);
-            throw new ConnectorException("Error deleting user with UID: " + uid.getUidValue(), e);
+            LOG.error("Error deleting object", e);
+            throw new ConnectorException("Error deleting " + objectClass.getObjectClassValue() + " with UID: " + uid.getUidValue(), e);
+        } finally {
+            ObjectCache cache = getObjectCache();
+            if (cache != null) {
+                if (objectClass.is(ObjectClass.GROUP_NAME)) {
+                    // El grupo desaparece de los `roles` de cualquier eperson cacheado
+                    cache.invalidateAll();
+                } else {
+                    cache.invalidate(uid.getUidValue());
+                }
+            }
+            invalidateConditionalReads(uid.getUidValue());
         }
     }
 
     @Override
     public Uid addAttributeValues(ObjectClass objectClass, Uid uid, Set<Attribute> valuesToAdd, OperationOptions options) {
-      ensureAuthManagerInitialized();
-        LOG.ok("Entering addAttributeValues with ObjectClass: {0}, UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
-    
-        // Implementación específica para añadir valores a atributos multi-valor
-        // Aquí puedes agregar la lógica para añadir roles u otros atributos
-    
-        // Por ahora, lanzamos una excepción indicando que no está implementado
-        throw new UnsupportedOperationException("addAttributeValues operation is not implemented yet.");
+        Set<AttributeDelta> modifications = new HashSet<>();
+        for (Attribute attr : valuesToAdd) {
+            modifications.add(AttributeDeltaBuilder.build(attr.getName(), attr.getValue(), null));
+        }
+        updateDelta(objectClass, uid, modifications, options);
+        return uid;
     }
-    
+
     @Override
     public Uid removeAttributeValues(ObjectClass objectClass, Uid uid, Set<Attribute> valuesToRemove, OperationOptions options) {
-      ensureAuthManagerInitialized();
-        LOG.ok("Entering removeAttributeValues with ObjectClass: {0}, UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
-    
-        // Implementación específica para eliminar valores de atributos multi-valor
-        // Aquí puedes agregar la lógica para eliminar roles u otros atributos
-    
-        // Por ahora, lanzamos una excepción indicando que no está implementado
-        throw new UnsupportedOperationException("removeAttributeValues operation is not implemented yet.");
+        Set<AttributeDelta> modifications = new HashSet<>();
+        for (Attribute attr : valuesToRemove) {
+            modifications.add(AttributeDeltaBuilder.build(attr.getName(), null, attr.getValue()));
+        }
+        updateDelta(objectClass, uid, modifications, options);
+        return uid;
+    }
+
+    // ==============================
+    // Bloque de Actualización por Deltas (JSON Patch)
+    // ==============================
+
+    // Cada delta se traduce a las operaciones JSON Patch mínimas y todas se envían en un único
+    // PATCH; las membresías (roles / members) van por los endpoints de grupos.
+    @Override
+    public Set<AttributeDelta> updateDelta(ObjectClass objectClass, Uid uid, Set<AttributeDelta> modifications,
+                                           OperationOptions options) {
+        return timed(ConnectorMetrics.Operation.UPDATE, () -> updateObject(objectClass, uid, modifications));
+    }
+
+    private Set<AttributeDelta> updateObject(ObjectClass objectClass, Uid uid, Set<AttributeDelta> modifications) {
+        LOG.ok("Entering updateDelta with ObjectClass: {0}, UID: {1}", objectClass.getObjectClassValue(), uid.getUidValue());
+
+        boolean group = objectClass.is(ObjectClass.GROUP_NAME);
+        if (!group && !objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+            throw new UnsupportedOperationException("Update operation is not supported for object class: " + objectClass.getObjectClassValue());
+        }
+        String objectUrl = getConfiguration().getServiceAddress() + (group ? ROLES_ENDPOINT : USERS_ENDPOINT)
+                + "/" + uid.getUidValue();
+
+        List<AttributeDelta> membershipDeltas = new ArrayList<>();
+        // Estado actual del objeto, solo si hace falta para localizar valores a quitar
+        JSONObject[] current = new JSONObject[1];
+        JsonPatch patch = buildPatch(group, modifications, membershipDeltas, () -> {
+            if (current[0] == null) {
+                current[0] = getObject(objectUrl);
+                if (current[0] == null) {
+                    throw new UnknownUidException(uid, objectClass);
+                }
+            }
+            return current[0];
+        });
+
+        try {
+            if (!patch.isEmpty()) {
+                HttpPatch request = new HttpPatch(objectUrl);
+                request.setEntity(new StringEntity(patch.toString(), ContentType.create(JsonPatch.CONTENT_TYPE, StandardCharsets.UTF_8)));
+                // La respuesta (el objeto completo) no se usa: se descarta sin decodificarla
+                callRequest(request, reader -> null);
+                LOG.ok("Patched {0} {1} with {2} operation(s)", objectClass.getObjectClassValue(), uid.getUidValue(), patch.size());
+            }
+            for (AttributeDelta delta : membershipDeltas) {
+                applyMembershipDelta(group, uid.getUidValue(), delta);
+            }
+        } finally {
+            // También si falla a medias: parte de los cambios puede haberse aplicado
+            if (!group) {
+                invalidateCachedObject(uid.getUidValue());
+            } else {
+                invalidateConditionalReads(uid.getUidValue());
+            }
+        }
+        return Collections.emptySet();
+    }
+
+    // Operaciones JSON Patch de los deltas; los de membresía se apartan en membershipDeltas.
+    // current da el estado actual del objeto (solo se pide si hay valores de metadatos que
+    // quitar). Visible en el paquete para los benchmarks (benchmarks/).
+    JsonPatch buildPatch(boolean group, Set<AttributeDelta> modifications, List<AttributeDelta> membershipDeltas,
+                         Supplier<JSONObject> current) {
+        String membershipAttribute = group ? ATTR_GROUP_MEMBERS : ATTR_ROLES;
+        // En cuentas __NAME__ es el email (como en create); si llegan ambos deben coincidir
+        AttributeDelta nameDelta = group ? null : AttributeDeltaUtil.find(Name.NAME, modifications);
+        AttributeDelta emailDelta = group ? null : AttributeDeltaUtil.find(ATTR_EMAIL, modifications);
+        if (nameDelta != null && emailDelta != null && !sameValues(nameDelta, emailDelta)) {
+            throw new InvalidAttributeValueException(NAME_EMAIL_MISMATCH);
+        }
+        JsonPatch patch = new JsonPatch();
+        for (AttributeDelta delta : modifications) {
+            String attrName = delta.getName();
+            if (membershipAttribute.equals(attrName)) {
+                membershipDeltas.add(delta);
+                continue;
+            }
+            MappedField mappedField = group ? null : getMetadataMapping().forAttribute(attrName);
+            if (mappedField != null) {
+                addMetadataOperations(patch, mappedField, delta, current);
+            } else if (group && ATTR_GROUP_DESCRIPTION.equals(attrName)) {
+                addFieldOperation(patch, "/metadata/" + GROUP_DESCRIPTION_FIELD, delta, true);
+            } else if (group && Name.NAME.equals(attrName)) {
+                addFieldOperation(patch, "/name", delta, false);
+            } else if (Name.NAME.equals(attrName)) {
+                if (emailDelta == null) {
+                    addFieldOperation(patch, PATCH_PATHS.get(ATTR_EMAIL), delta, false);
+                }
+            } else if (!group && PATCH_PATHS.containsKey(attrName)) {
+                addFieldOperation(patch, PATCH_PATHS.get(attrName), delta, false);
+            } else {
+                throw new InvalidAttributeValueException("Attribute " + attrName + " cannot be updated");
+            }
+        }
+        return patch;
+    }
+
+    private static boolean sameValues(AttributeDelta a, AttributeDelta b) {
+        return Objects.equals(a.getValuesToReplace(), b.getValuesToReplace())
+                && Objects.equals(a.getValuesToAdd(), b.getValuesToAdd())
+                && Objects.equals(a.getValuesToRemove(), b.getValuesToRemove());
+    }
+
+    // Atributo de un solo valor con ruta propia en el PATCH (p.ej. /canLogin o /name).
+    // Con metadataValues el valor va en el formato de metadatos de DSpace.
+    private static void addFieldOperation(JsonPatch patch, String path, AttributeDelta delta, boolean metadataValues) {
+        List<Object> values = delta.getValuesToReplace() != null ? delta.getValuesToReplace() : delta.getValuesToAdd();
+        if (values == null || values.isEmpty() || values.get(0) == null) {
+            if (delta.getValuesToRemove() != null || delta.getValuesToReplace() != null) {
+                patch.remove(path);
+            }
+            return;
+        }
+        Object value = values.get(0);
+        patch.replace(path, metadataValues
+                ? new JSONArray().put(new JSONObject().put("value", value.toString()))
+                : value);
+    }
+
+    // Metadatos: reemplazo del campo completo, altas al final (/-) y bajas por posición
+    private static void addMetadataOperations(JsonPatch patch, MappedField mappedField, AttributeDelta delta,
+                                              Supplier<JSONObject> currentObject) {
+        String path = "/metadata/" + mappedField.getField();
+        if (delta.getValuesToReplace() != null) {
+            JSONArray values = mappedField.toMetadataValues(delta.getValuesToReplace());
+            if (values.isEmpty()) {
+                patch.remove(path);
+            } else {
+                patch.replace(path, values);
+            }
+            return;
+        }
+        if (delta.getValuesToRemove() != null && !delta.getValuesToRemove().isEmpty()) {
+            // JSON Patch elimina por índice: se buscan los valores en el estado actual
+            JSONArray toRemove = mappedField.toMetadataValues(delta.getValuesToRemove());
+            JSONObject metadata = currentObject.get().optJSONObject("metadata");
+            JSONArray existing = metadata != null ? metadata.optJSONArray(mappedField.getField()) : null;
+            if (existing != null) {
+                // De mayor a menor para que los índices sigan siendo válidos
+                for (int i = existing.length() - 1; i >= 0; i--) {
+                    String value = existing.getJSONObject(i).optString("value", null);
+                    for (int j = 0; j < toRemove.length(); j++) {
+                        if (toRemove.getJSONObject(j).getString("value").equals(value)) {
+                            patch.remove(path + "/" + i);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        if (delta.getValuesToAdd() != null) {
+            JSONArray values = mappedField.toMetadataValues(delta.getValuesToAdd());
+            for (int i = 0; i < values.length(); i++) {
+                patch.add(path + "/-", values.getJSONObject(i));
+            }
+        }
+    }
+
+    // ==============================
+    // Bloque de Membresías de Grupos
+    // ==============================
+
+    // Altas: `roles` en cuentas (un POST por grupo) o `members` en grupos (un único POST
+    // text/uri-list con todos los epersons). Bajas: DSpace solo las admite de una en una.
+    private void applyMembershipDelta(boolean group, String uid, AttributeDelta delta) {
+        if (delta.getValuesToReplace() != null) {
+            List<String> wanted = toStrings(delta.getValuesToReplace());
+            List<String> existing = group ? fetchGroupMembers(uid) : fetchUserGroups(uid);
+            List<String> toAdd = new ArrayList<>(wanted);
+            toAdd.removeAll(existing);
+            List<String> toRemove = new ArrayList<>(existing);
+            toRemove.removeAll(wanted);
+            addMemberships(group, uid, toAdd);
+            removeMemberships(group, uid, toRemove);
+            return;
+        }
+        addMemberships(group, uid, toStrings(delta.getValuesToAdd()));
+        removeMemberships(group, uid, toStrings(delta.getValuesToRemove()));
+    }
+
+    private void addMemberships(boolean group, String uid, List<String> values) {
+        if (group) {
+            addGroupMembers(uid, values);
+        } else {
+            for (String groupUuid : values) {
+                addGroupMembers(groupUuid, List.of(uid));
+            }
+        }
+    }
+
+    private void removeMemberships(boolean group, String uid, List<String> values) {
+        for (String value : values) {
+            if (group) {
+                removeGroupMember(uid, value);
+            } else {
+                removeGroupMember(value, uid);
+            }
+        }
+    }
+
+    private static List<String> toStrings(List<Object> values) {
+        List<String> strings = new ArrayList<>();
+        if (values != null) {
+            for (Object value : values) {
+                if (value != null) {
+                    strings.add(value.toString());
+                }
+            }
+        }
+        return strings;
+    }
+
+    // POST /groups/{uuid}/epersons con un URI de eperson por línea (text/uri-list)
+    private void addGroupMembers(String groupUuid, List<String> epersonUuids) {
+        if (epersonUuids.isEmpty()) {
+            return;
+        }
+        String usersEndpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT;
+        StringBuilder uriList = new StringBuilder();
+        for (String epersonUuid : epersonUuids) {
+            uriList.append(usersEndpoint).append('/').append(epersonUuid).append('\n');
+        }
+        HttpPost request = new HttpPost(getConfiguration().getServiceAddress() + ROLES_ENDPOINT + "/" + groupUuid + "/epersons");
+        request.setHeader("Content-Type", "text/uri-list");
+        request.setEntity(new StringEntity(uriList.toString(), ContentType.create("text/uri-list", StandardCharsets.UTF_8)));
+        try {
+            callRequest(request);
+        } finally {
+            epersonUuids.forEach(this::invalidateCachedObject);
+            invalidateConditionalReads(groupUuid);
+        }
+        LOG.ok("Added {0} member(s) to group {1}", epersonUuids.size(), groupUuid);
+    }
+
+    private void removeGroupMember(String groupUuid, String epersonUuid) {
+        HttpDelete request = new HttpDelete(getConfiguration().getServiceAddress() + ROLES_ENDPOINT
+                + "/" + groupUuid + "/epersons/" + epersonUuid);
+        try {
+            callRequest(request);
+            LOG.ok("Removed eperson {0} from group {1}", epersonUuid, groupUuid);
+        } catch (UnknownUidException e) {
+            // El vínculo ya no existe: la baja es idempotente
+            LOG.ok("Eperson {0} is not a member of group {1}", epersonUuid, groupUuid);
+        } finally {
+            invalidateCachedObject(epersonUuid);
+            invalidateConditionalReads(groupUuid);
+        }
     }
 
     // ==============================
     // Bloque de Definición de Esquema
     // ==============================
 
+    // Esquema construido, válido mientras no cambie la tabla de metadatos de la que sale
+    private org.identityconnectors.framework.common.objects.Schema schema;
+    private MetadataMapping schemaSource;
+
     @Override
     public org.identityconnectors.framework.common.objects.Schema schema() {
+        // Con schemaDiscovery se pregunta a DSpace si el registro cambió (normalmente un 304)
+        if (Boolean.TRUE.equals(getConfiguration().getSchemaDiscovery())) {
+            getMetadataRegistry().refresh(this::loadRegistryPage, true);
+        }
+        MetadataMapping mapping = getMetadataMapping();
+        if (schema == null || schemaSource != mapping) {
+            schema = buildSchema(mapping);
+            schemaSource = mapping;
+        }
+        return schema;
+    }
+
+    private org.identityconnectors.framework.common.objects.Schema buildSchema(MetadataMapping mapping) {
         LOG.ok("Construyendo el esquema del conector");
         SchemaBuilder schemaBuilder = new SchemaBuilder(RestUsersConnector.class);
 
@@ -235,7 +815,7 @@ public class RestUsersConnector
             AttributeInfoBuilder.define(ATTR_USERNAME)
                 .setRequired(true)
                 .setCreateable(true)
-                .setUpdateable(true)
+                .setUpdateable(false)
                 .setReadable(true)
                 .build()
         );
@@ -249,22 +829,6 @@ public class RestUsersConnector
                 .build()
         );
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_FIRST_NAME)
-                .setCreateable(true)
-                .setUpdateable(true)
-                .setReadable(true)
-                .build()
-        );
-
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_LAST_NAME)
-                .setCreateable(true)
-                .setUpdateable(true)
-                .setReadable(true)
-                .build()
-        );
-
         userObjClassBuilder.addAttributeInfo(
             AttributeInfoBuilder.define(ATTR_CAN_LOG_IN)
                 .setCreateable(false)
@@ -300,69 +864,70 @@ public class RestUsersConnector
         userObjClassBuilder.addAttributeInfo(
             AttributeInfoBuilder.define(ATTR_SELF_REGISTERED)
                 .setCreateable(true)
-                .setUpdateable(true)
+                .setUpdateable(false)
                 .setReadable(true)
                 .build()
         );
 
         userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_ALERT_EMBARGO)
-                .setCreateable(true)
+            AttributeInfoBuilder.define(ATTR_ROLES)
+                .setMultiValued(true)
+                .setCreateable(false)
                 .setUpdateable(true)
                 .setReadable(true)
+                .setReturnedByDefault(false)
                 .build()
         );
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_LANGUAGE)
-                .setCreateable(true)
-                .setUpdateable(true)
-                .setReadable(true)
-                .build()
-        );
+        // Atributos de metadatos según la tabla configurada (metadataMappings) y el registro
+        for (MappedField mappedField : mapping.getFields()) {
+            userObjClassBuilder.addAttributeInfo(
+                AttributeInfoBuilder.define(mappedField.getAttribute())
+                    .setType(mappedField.getType().getJavaType())
+                    .setMultiValued(mappedField.isMultiValued())
+                    .setCreateable(true)
+                    .setUpdateable(true)
+                    .setReadable(true)
+                    .build()
+            );
+        }
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_LICENSE_ACCEPTED)
-                .setCreateable(true)
-                .setUpdateable(true)
-                .setReadable(true)
-                .build()
-        );
+        // Definir el ObjectClass de usuario en el esquema
+        schemaBuilder.defineObjectClass(userObjClassBuilder.build());
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_LICENSE_ACCEPTED_DATE)
-                .setCreateable(true)
-                .setUpdateable(true)
-                .setReadable(true)
-                .build()
-        );
+        // Definir ObjectClass para grupos de DSpace (uuid como __UID__, name como __NAME__)
+        ObjectClassInfoBuilder groupObjClassBuilder = new ObjectClassInfoBuilder();
+        groupObjClassBuilder.setType(ObjectClass.GROUP_NAME);
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_ORCID_SCOPE)
+        groupObjClassBuilder.addAttributeInfo(
+            AttributeInfoBuilder.define(ATTR_GROUP_DESCRIPTION)
                 .setCreateable(true)
                 .setUpdateable(true)
                 .setReadable(true)
                 .build()
         );
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_ORCID)
-                .setCreateable(true)
-                .setUpdateable(true)
+        groupObjClassBuilder.addAttributeInfo(
+            AttributeInfoBuilder.define(ATTR_GROUP_PERMANENT)
+                .setType(Boolean.class)
+                .setCreateable(false)
+                .setUpdateable(false)
                 .setReadable(true)
                 .build()
         );
 
-        userObjClassBuilder.addAttributeInfo(
-            AttributeInfoBuilder.define(ATTR_PHONE)
-                .setCreateable(true)
+        // Miembros del grupo: solo escritura incremental (addAttributeValues/removeAttributeValues)
+        groupObjClassBuilder.addAttributeInfo(
+            AttributeInfoBuilder.define(ATTR_GROUP_MEMBERS)
+                .setMultiValued(true)
+                .setCreateable(false)
                 .setUpdateable(true)
-                .setReadable(true)
+                .setReadable(false)
+                .setReturnedByDefault(false)
                 .build()
         );
 
-        // Definir el ObjectClass de usuario en el esquema
-        schemaBuilder.defineObjectClass(userObjClassBuilder.build());
+        schemaBuilder.defineObjectClass(groupObjClassBuilder.build());
 
         LOG.ok("Esquema del conector construido exitosamente");
         return schemaBuilder.build();
@@ -379,131 +944,975 @@ public class RestUsersConnector
 
     @Override
     public void executeQuery(ObjectClass objectClass, RestUsersFilter query, ResultsHandler handler, OperationOptions options) {
-      ensureAuthManagerInitialized();
+        timed(ConnectorMetrics.Operation.SEARCH, () -> {
+            searchObjects(objectClass, query, handler, options);
+            return null;
+        });
+    }
+
+    // La latencia de la búsqueda incluye el tiempo del handler de midPoint
+    private void searchObjects(ObjectClass objectClass, RestUsersFilter query, ResultsHandler handler, OperationOptions options) {
         LOG.ok("Executing query on ObjectClass: {0}", objectClass.getObjectClassValue());
 
-        if (!objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+        boolean groups = objectClass.is(ObjectClass.GROUP_NAME);
+        if (!groups && !objectClass.is(ObjectClass.ACCOUNT_NAME)) {
             throw new UnsupportedOperationException("Search operation is not supported for object class: " + objectClass.getObjectClassValue());
         }
 
+        // Atributos pedidos por midPoint: el resto no se decodifica
+        AttributeSelection attributes = AttributeSelection.from(options);
+
         try {
+            if (groups) {
+                executeGroupQuery(query, handler, options, attributes);
+                return;
+            }
+            // Membresías solo si midPoint pidió `roles`: se piden embebidas (embed=groups) y,
+            // para quien no las traiga, en lotes concurrentes por página con memo por búsqueda
+            MembershipResolver memberships = attributes.includesExplicitly(ATTR_ROLES)
+                    ? new MembershipResolver(getSearchExecutor(), getConfiguration().getMembershipFetchConcurrency(),
+                            this::fetchUserGroups)
+                    : null;
+            UserQuery users = new UserQuery(attributes, memberships);
+
             String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT;
             if (query != null && query.byUid != null) {
-                // Búsqueda por UID específico
-                endpoint += "/" + query.byUid;
-                HttpGet request = new HttpGet(endpoint);
-                JSONObject response = new JSONObject(callRequest(request));
-
-                ConnectorObject connectorObject = convertUserToConnectorObject(response);
-                handler.handle(connectorObject);
+                // Búsqueda por UID específico; un UID inexistente no produce resultados
+                ObjectCache cache = getObjectCache();
+                ConnectorObject cached = cache != null ? cache.get(query.byUid, attributes) : null;
+                if (cached != null) {
+                    handler.handle(cached);
+                    return;
+                }
+                ConnectorObject connectorObject = readObject(users.uri(endpoint + "/" + query.byUid), attributes,
+                        users::convert, users::selfContained);
+                if (connectorObject != null) {
+                    if (cache != null) {
+                        cache.put(query.byUid, attributes, connectorObject);
+                    }
+                    handler.handle(connectorObject);
+                }
+            } else if (query != null && query.byEmail != null) {
+                // Búsqueda exacta por email: DSpace devuelve el eperson o 204 si no existe
+                handleUserByEmail(endpoint, query.byEmail, handler, users);
+            } else if (query != null && (query.byUsername != null || query.byName != null)) {
+                // El nombre de DSpace coincide con el email; byMetadata busca por email, nombre y apellido
+                String name = query.byUsername != null ? query.byUsername : query.byName;
+                handlePaged(users.uri(searchUri(endpoint, "byMetadata", "query", name)), "epersons",
+                        user -> name.equalsIgnoreCase(user.optString("name")),
+                        users.batchPreparer(), users::convert, handler, options);
+            } else if (query != null && query.byNetId != null) {
+                handleUsersByNetId(endpoint, query.byNetId, handler, options, users);
+            } else if (query != null && query.byPrefix != null) {
+                handlePrefixes(endpoint, "epersons", query.byPrefix, users::uri,
+                        users.batchPreparer(), users::convert, handler, options);
             } else {
-                // Búsqueda general
-                HttpGet request = new HttpGet(endpoint);
-                handleUsers(request, handler, options);
+                // Búsqueda general, recorriendo todas las páginas
+                handlePaged(users.uri(endpoint), "epersons", null,
+                        users.batchPreparer(), users::convert, handler, options);
             }
+        } catch (ConnectorException e) {
+            LOG.error("Error executing query", e);
+            throw e;
         } catch (Exception e) {
             LOG.error("Error executing query", e);
             throw new ConnectorException("Error executing query", e);
         }
     }
 
-    // Método para manejar la respuesta de usuarios
-    private void handleUsers(HttpGet request, ResultsHandler handler, OperationOptions options) throws IOException {
-        String responseString = callRequest(request);
-        JSONObject responseObject = new JSONObject(responseString);
+    // Grupos: por UID, por nombre exacto (byMetadata + filtro) o listado completo paginado
+    private void executeGroupQuery(RestUsersFilter query, ResultsHandler handler, OperationOptions options,
+                                   AttributeSelection attributes) {
+        String endpoint = getConfiguration().getServiceAddress() + ROLES_ENDPOINT;
+        if (query != null && query.byUid != null) {
+            ConnectorObject group = readObject(endpoint + "/" + query.byUid, attributes,
+                    response -> convertGroupToConnectorObject(response, attributes), response -> true);
+            if (group != null) {
+                handler.handle(group);
+            }
+        } else if (query != null && query.byName != null) {
+            String name = query.byName;
+            handlePaged(searchUri(endpoint, "byMetadata", "query", name), "groups",
+                    group -> name.equals(group.optString("name")), null,
+                    group -> convertGroupToConnectorObject(group, attributes), handler, options);
+        } else if (query != null && query.byPrefix != null) {
+            handlePrefixes(endpoint, "groups", query.byPrefix, uri -> uri, null,
+                    group -> convertGroupToConnectorObject(group, attributes), handler, options);
+        } else {
+            handlePaged(endpoint, "groups", null, null,
+                    group -> convertGroupToConnectorObject(group, attributes), handler, options);
+        }
+    }
+
+    // GET de un objeto individual; null si DSpace responde 404
+    private JSONObject getObject(String url) {
+        try {
+            return callRequest(new HttpGet(url), reader -> new JSONObject(new JSONTokener(reader)));
+        } catch (UnknownUidException e) {
+            LOG.ok("Object not found: {0}", url);
+            return null;
+        }
+    }
 
-        if (responseObject.has("_embedded")) {
-            JSONObject embedded = responseObject.getJSONObject("_embedded");
-            if (embedded.has("epersons")) {
-                JSONArray users = embedded.getJSONArray("epersons");
-                for (int i = 0; i < users.length(); i++) {
-                    JSONObject user = users.getJSONObject(i);
-                    ConnectorObject connectorObject = convertUserToConnectorObject(user);
-                    boolean continueProcessing = handler.handle(connectorObject);
-                    if (!continueProcessing) {
-                        break;
-                    }
+    // Objeto por uuid con GET condicional; null si DSpace responde 404
+    private <T> T readObject(String url, Object variant, Function<JSONObject, T> converter, Predicate<JSONObject> reusable) {
+        try {
+            return readConditional(url, variant, reader -> new JSONObject(new JSONTokener(reader)), converter, reusable);
+        } catch (UnknownUidException e) {
+            LOG.ok("Object not found: {0}", url);
+            ConditionalReadCache cache = getConditionalReadCache();
+            if (cache != null) {
+                cache.remove(url);
+            }
+            return null;
+        }
+    }
+
+    // GET con la ETag / Last-Modified de la lectura anterior de la URL: si DSpace responde 304
+    // se devuelve el resultado ya convertido entonces, sin leer cuerpo. Solo se guardan los
+    // resultados que dependen únicamente de esta respuesta (reusable). null si no hay cuerpo.
+    private <R, T> T readConditional(String url, Object variant, ResponseReader<R> reader,
+                                     Function<R, T> converter, Predicate<R> reusable) {
+        ensureAuthManagerInitialized();
+        ConditionalReadCache cache = getConditionalReadCache();
+        ConditionalReadCache.Entry cached = cache != null ? cache.get(url, variant) : null;
+        HttpGet request = new HttpGet(url);
+        request.setHeader("Accept", "application/json");
+        if (cached != null && cached.getEtag() != null) {
+            request.setHeader(HttpHeaders.IF_NONE_MATCH, cached.getEtag());
+        }
+        if (cached != null && cached.getLastModified() != null) {
+            request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.getLastModified());
+        }
+
+        boolean[] notModified = new boolean[1];
+        String[] validators = new String[2];
+        R body;
+        try {
+            body = execute(request, response -> {
+                if (response.getCode() == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                    notModified[0] = true;
+                    return null;
                 }
+                processResponseErrors(response);
+                validators[0] = headerValue(response, HttpHeaders.ETAG);
+                validators[1] = headerValue(response, HttpHeaders.LAST_MODIFIED);
+                return readEntity(response, reader);
+            });
+        } catch (IOException e) {
+            LOG.error("Error executing request", e);
+            throw new ConnectorException("Error executing request", e);
+        }
+
+        if (notModified[0]) {
+            cache.recordNotModified();
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.getValue();
+            return value;
+        }
+        if (cached != null) {
+            cache.recordModified();
+        }
+        T value = body != null ? converter.apply(body) : null;
+        if (cache != null) {
+            if (value != null && reusable.test(body)) {
+                cache.put(url, variant, validators[0], validators[1], value);
+            } else {
+                cache.remove(url);
+            }
+        }
+        return value;
+    }
+
+    private static String headerValue(ClassicHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    private void handleUserByEmail(String endpoint, String email, ResultsHandler handler, UserQuery users) {
+        HttpGet request = new HttpGet(users.uri(searchUri(endpoint, "byEmail", "email", email)));
+        JSONObject response = callRequest(request, reader -> new JSONObject(new JSONTokener(reader)));
+        if (response != null) {
+            handler.handle(users.convert(response));
+        }
+    }
+
+    // DSpace no tiene búsqueda por netid (byMetadata no mira esa columna): se recorre el
+    // listado completo y se filtra en el conector antes de convertir.
+    private void handleUsersByNetId(String endpoint, String netId, ResultsHandler handler, OperationOptions options,
+                                    UserQuery users) {
+        handlePaged(users.uri(endpoint), "epersons", user -> netId.equals(user.optString(ATTR_NET_ID, null)),
+                users.batchPreparer(), users::convert, handler, options);
+    }
+
+    // StartsWith (buckets de reconciliación): cada alternativa se busca con byMetadata por su
+    // prefijo más largo de email o nombre. DSpace busca ahí coincidencias parciales (email,
+    // nombre y apellido de epersons, nombre de grupos), así que cada prefijo se comprueba aquí.
+    // Una alternativa solo con netid no tiene búsqueda que la acote: listado completo filtrado.
+    // Con varias alternativas, quien cumpla más de una se entrega una sola vez.
+    private void handlePrefixes(String endpoint, String collection, List<Map<String, String>> alternatives,
+                                UnaryOperator<String> uri, Consumer<List<JSONObject>> batchPreparer,
+                                Function<JSONObject, ConnectorObject> converter, ResultsHandler handler,
+                                OperationOptions options) {
+        // La ventana de midPoint se aplica sobre lo que cumple los prefijos, no sobre las páginas
+        // de DSpace (que traen de más), y abarca todas las alternativas
+        SearchWindow window = SearchWindow.of(handler, options);
+        // Los elementos se filtran en los hilos de descarga de páginas
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        for (Map<String, String> prefixes : alternatives) {
+            if (window.stopped) {
+                break;
+            }
+            handlePaged(uri.apply(prefixSearchUri(endpoint, prefixes)), collection,
+                    element -> matchesPrefixes(element, prefixes) && seen.add(element.optString("uuid")),
+                    batchPreparer, converter, window::test, null);
+        }
+        LOG.ok("Prefix search finished, alternatives: {0}, handled: {1}", alternatives.size(), window.handled);
+        window.handleResult();
+    }
+
+    private String prefixSearchUri(String endpoint, Map<String, String> prefixes) {
+        String term = null;
+        for (String field : List.of("email", "name")) {
+            String prefix = prefixes.get(field);
+            if (prefix != null && (term == null || prefix.length() > term.length())) {
+                term = prefix;
+            }
+        }
+        if (term == null) {
+            LOG.ok("No email or name prefix in {0}, scanning all {1}", prefixes, endpoint);
+            return endpoint;
+        }
+        return searchUri(endpoint, "byMetadata", "query", term);
+    }
+
+    // Igual que el StartsWith de ICF pero sin distinguir mayúsculas (ICF vuelve a filtrar)
+    private static boolean matchesPrefixes(JSONObject element, Map<String, String> prefixes) {
+        for (Map.Entry<String, String> prefix : prefixes.entrySet()) {
+            String value = element.optString(prefix.getKey(), null);
+            if (value == null || !RestUsersFilterTranslator.startsWithIgnoreCase(value, prefix.getValue())) {
+                return false;
             }
         }
+        return true;
+    }
+
+    // Parámetros de una búsqueda de epersons: atributos pedidos y, si se pidió `roles`,
+    // el resolutor de membresías de esta búsqueda
+    private final class UserQuery {
+        private final AttributeSelection attributes;
+        private final MembershipResolver memberships;
+
+        private UserQuery(AttributeSelection attributes, MembershipResolver memberships) {
+            this.attributes = attributes;
+            this.memberships = memberships;
+        }
+
+        // Añade embed=groups (con tamaño igual al de página) cuando hacen falta las membresías
+        private String uri(String uri) {
+            if (memberships == null) {
+                return uri;
+            }
+            try {
+                return new URIBuilder(uri)
+                        .addParameter("embed", "groups")
+                        .addParameter("embed.size", "groups=" + getConfiguration().getPageSize())
+                        .build()
+                        .toString();
+            } catch (URISyntaxException e) {
+                throw new ConnectorException("Invalid endpoint URI: " + uri, e);
+            }
+        }
+
+        // Sin membresías la página se entrega en streaming; con ellas se resuelven por lotes
+        private Consumer<List<JSONObject>> batchPreparer() {
+            return memberships != null ? memberships::prefetch : null;
+        }
+
+        private ConnectorObject convert(JSONObject user) {
+            return convertUserToConnectorObject(user, attributes, memberships);
+        }
+
+        // Los grupos pedidos aparte (no embebidos o truncados) no los cubre la ETag del eperson,
+        // así que ese objeto no se puede reutilizar en un 304
+        private boolean selfContained(JSONObject user) {
+            return memberships == null || MembershipResolver.embeddedGroups(user) != null;
+        }
+    }
+
+    // Grupos directos de un eperson, recorriendo todas las páginas de /epersons/{uuid}/groups
+    private List<String> fetchUserGroups(String userUuid) {
+        return fetchUuids(getConfiguration().getServiceAddress() + USERS_ENDPOINT + "/" + userUuid + "/groups", "groups");
+    }
+
+    // Miembros directos de un grupo (/groups/{uuid}/epersons)
+    private List<String> fetchGroupMembers(String groupUuid) {
+        return fetchUuids(getConfiguration().getServiceAddress() + ROLES_ENDPOINT + "/" + groupUuid + "/epersons", "epersons");
+    }
+
+    private List<String> fetchUuids(String endpoint, String collection) {
+        List<String> uuids = new ArrayList<>();
+        UuidPage page;
+        int number = 0;
+        do {
+            page = fetchUuidPage(pageUri(endpoint, number++, getConfiguration().getPageSize()).toString(), collection);
+            if (page == null) {
+                break;
+            }
+            uuids.addAll(page.uuids);
+        } while (page.hasNext);
+        return uuids;
+    }
+
+    // UUIDs de una página de membresías, inmutable para poder reutilizarla tras un 304
+    private static final class UuidPage {
+        private final List<String> uuids;
+        private final boolean hasNext;
+
+        private UuidPage(List<String> uuids, boolean hasNext) {
+            this.uuids = Collections.unmodifiableList(uuids);
+            this.hasNext = hasNext;
+        }
+    }
+
+    private UuidPage fetchUuidPage(String url, String collection) {
+        return readConditional(url, null, reader -> {
+            List<String> uuids = new ArrayList<>();
+            HalPage page = HalPageReader.read(reader, collection, element -> uuids.add(element.getString("uuid")));
+            return new UuidPage(uuids, page.hasNext());
+        }, Function.identity(), page -> true);
+    }
+
+    private String searchUri(String endpoint, String searchMethod, String parameter, String value) {
+        try {
+            return new URIBuilder(endpoint + "/search/" + searchMethod)
+                    .addParameter(parameter, value)
+                    .build()
+                    .toString();
+        } catch (URISyntaxException e) {
+            throw new ConnectorException("Invalid search URI for " + searchMethod, e);
+        }
+    }
+
+    // Método para manejar un listado paginado de DSpace (_embedded.<collection>).
+    // Si midPoint solicita paginación (pageSize/pagedResultsOffset) solo se entrega esa ventana;
+    // en caso contrario se recorren todas las páginas con el tamaño configurado.
+    // filter (opcional) descarta sobre el JSON, antes de convertir, los objetos que no cumplen
+    // la condición exacta de un filtro que DSpace solo resuelve de forma aproximada.
+    // batchPreparer (opcional) recibe cada página completa antes de convertirla, para resolver
+    // en bloque datos que no vienen en el listado (p.ej. membresías de grupos).
+    // Un listado completo sin filtro ni paginación de midPoint se descarga con
+    // parallelPageFetches páginas a la vez (ParallelPageFetcher).
+    private void handlePaged(String endpoint, String collection, Predicate<JSONObject> filter,
+                             Consumer<List<JSONObject>> batchPreparer,
+                             Function<JSONObject, ConnectorObject> converter, ResultsHandler handler,
+                             OperationOptions options) {
+        Integer requestedPageSize = options != null ? options.getPageSize() : null;
+        Integer requestedOffset = options != null ? options.getPagedResultsOffset() : null;
+        boolean pagedByCaller = requestedPageSize != null && requestedPageSize > 0;
+
+        // Con filtro la ventana de midPoint se cuenta sobre lo que lo cumple y no sobre las
+        // páginas de DSpace: se recorre el listado desde el principio y se corta al completarla
+        if (filter != null && pagedByCaller) {
+            SearchWindow window = SearchWindow.of(handler, options);
+            handlePaged(endpoint, collection, filter, batchPreparer, converter, window::test, null);
+            window.handleResult();
+            return;
+        }
+
+        int size = pagedByCaller ? requestedPageSize : getConfiguration().getPageSize();
+        // El offset de ICF empieza en 1
+        int skip = pagedByCaller && requestedOffset != null && requestedOffset > 1 ? requestedOffset - 1 : 0;
+        int limit = pagedByCaller ? requestedPageSize : Integer.MAX_VALUE;
+
+        int firstPage = skip / size;
+        SearchWindow window = new SearchWindow(handler, skip % size, limit);
+        // Con paginación de midPoint la ventana pedida abarca como mucho estas páginas
+        int maxPages = pagedByCaller ? (skip % size + limit + size - 1) / size : Integer.MAX_VALUE;
+
+        int parallelPages = getConfiguration().getParallelPageFetches();
+        boolean parallel = filter == null && !pagedByCaller && parallelPages > 1;
+        PagePrefetcher.PageLoader<ConnectorObject> loader = (page, sink) -> {
+            DSpaceEvents.SearchPage event = new DSpaceEvents.SearchPage();
+            event.begin();
+            HalPage halPage = batchPreparer == null
+                    ? fetchPage(endpoint, collection, page, size,
+                            element -> (filter != null && !filter.test(element)) || sink.test(converter.apply(element)))
+                    : fetchPageBatch(endpoint, collection, page, size, filter, batchPreparer, converter, sink);
+            if (event.shouldCommit()) {
+                event.endpoint = ConnectorMetrics.endpointOf(URI.create(endpoint).getRawPath());
+                event.page = page;
+                event.size = size;
+                event.elements = halPage.getElements();
+                event.totalPages = halPage.getTotalPages();
+                event.parallel = parallel;
+                event.commit();
+            }
+            return halPage;
+        };
+
+        HalPage lastPage;
+        if (parallel) {
+            // Listado completo (reconciliación): páginas en paralelo, sin repetir uuids
+            try (ParallelPageFetcher<ConnectorObject> fetcher = new ParallelPageFetcher<>(getSearchExecutor(), loader,
+                    connectorObject -> connectorObject.getUid().getUidValue(), parallelPages,
+                    getConfiguration().getParallelPagesOrdered())) {
+                lastPage = fetcher.forEach(window);
+            }
+        } else {
+            try (PagePrefetcher<ConnectorObject> prefetcher = new PagePrefetcher<>(getSearchExecutor(), loader,
+                    firstPage, maxPages, getConfiguration().getPrefetchPages())) {
+                lastPage = prefetcher.forEach(window);
+            }
+        }
+        long totalElements = lastPage != null ? lastPage.getTotalElements() : -1;
+        LOG.ok("Search finished, handled: {0}, totalElements: {1}", window.handled, totalElements);
+
+        if (handler instanceof SearchResultsHandler) {
+            // Con filtro totalElements cuenta también lo descartado: solo se sabe si se llegó al final
+            int remaining = filter != null ? (window.stopped ? -1 : 0)
+                    : totalElements >= 0 ? (int) Math.max(0, totalElements - skip - window.handled) : -1;
+            ((SearchResultsHandler) handler).handleResult(new SearchResult(null, remaining, remaining == 0));
+        }
+    }
+
+    // Descarga una página del listado decodificando _embedded.<collection> directamente del stream
+    private HalPage fetchPage(String endpoint, String collection, int page, int size, Predicate<JSONObject> elementHandler) {
+        HttpGet request = new HttpGet(pageUri(endpoint, page, size));
+        return callRequest(request, reader -> HalPageReader.read(reader, collection, elementHandler));
+    }
+
+    // Igual que fetchPage pero leyendo antes la página completa para pasarla a batchPreparer
+    private HalPage fetchPageBatch(String endpoint, String collection, int page, int size, Predicate<JSONObject> filter,
+                                   Consumer<List<JSONObject>> batchPreparer,
+                                   Function<JSONObject, ConnectorObject> converter, Predicate<ConnectorObject> sink) {
+        List<JSONObject> batch = new ArrayList<>(size);
+        HalPage halPage = fetchPage(endpoint, collection, page, size,
+                element -> (filter != null && !filter.test(element)) || batch.add(element));
+        batchPreparer.accept(batch);
+        for (JSONObject element : batch) {
+            if (!sink.test(converter.apply(element))) {
+                halPage.stop();
+                break;
+            }
+        }
+        return halPage;
+    }
+
+    // Ventana de resultados pedida por midPoint: descarta los primeros 'skip' y corta tras 'limit'
+    private static final class SearchWindow implements Predicate<ConnectorObject> {
+        private final ResultsHandler handler;
+        private final int limit;
+        private int skip;
+        private int handled;
+        // El handler o la ventana cortaron el recorrido antes de agotar las páginas
+        private boolean stopped;
+
+        private SearchWindow(ResultsHandler handler, int skip, int limit) {
+            this.handler = handler;
+            this.skip = skip;
+            this.limit = limit;
+        }
+
+        // Ventana completa de las opciones (el offset de ICF empieza en 1), para aplicarla
+        // fuera de handlePaged sobre resultados ya filtrados
+        private static SearchWindow of(ResultsHandler handler, OperationOptions options) {
+            Integer requestedPageSize = options != null ? options.getPageSize() : null;
+            Integer requestedOffset = options != null ? options.getPagedResultsOffset() : null;
+            boolean pagedByCaller = requestedPageSize != null && requestedPageSize > 0;
+            return new SearchWindow(handler,
+                    pagedByCaller && requestedOffset != null && requestedOffset > 1 ? requestedOffset - 1 : 0,
+                    pagedByCaller ? requestedPageSize : Integer.MAX_VALUE);
+        }
+
+        // Sin total de coincidencias solo se sabe si se llegó al final del recorrido
+        private void handleResult() {
+            if (handler instanceof SearchResultsHandler) {
+                ((SearchResultsHandler) handler).handleResult(new SearchResult(null, stopped ? -1 : 0, !stopped));
+            }
+        }
+
+        @Override
+        public boolean test(ConnectorObject connectorObject) {
+            if (skip > 0) {
+                skip--;
+                return true;
+            }
+            handled++;
+            stopped = !handler.handle(connectorObject) || handled >= limit;
+            return !stopped;
+        }
+    }
+
+    // URI de una página del listado; visible en el paquete para los benchmarks
+    URI pageUri(String endpoint, int page, int size) {
+        try {
+            return new URIBuilder(endpoint)
+                    .addParameter("page", String.valueOf(page))
+                    .addParameter("size", String.valueOf(size))
+                    .build();
+        } catch (URISyntaxException e) {
+            throw new ConnectorException("Invalid endpoint URI: " + endpoint, e);
+        }
     }
 
     // ==============================
     // Método para convertir datos de usuario en un ConnectorObject
     // ==============================
-    private ConnectorObject convertUserToConnectorObject(JSONObject user) {
+    // Solo se leen del JSON y se añaden al builder los atributos incluidos en la selección
+    // memberships es null salvo que se haya pedido `roles`
+    // Visible en el paquete para los benchmarks (benchmarks/)
+    ConnectorObject convertUserToConnectorObject(JSONObject user, AttributeSelection attributes,
+                                                 MembershipResolver memberships) {
         ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
     
         // Identificador principal del usuario (`uuid` en DSpace-CRIS)
         builder.setUid(new Uid(user.getString("uuid")));
     
         // `name` es el nombre o identificador del usuario, en este caso su email
-        builder.setName(user.optString(ATTR_USERNAME, "unknown"));
+        builder.setName(user.optString("name", "unknown"));
     
         // Atributos directos del usuario
-        addAttr(builder, ATTR_EMAIL, user.optString(ATTR_EMAIL, null));
-        addAttr(builder, ATTR_CAN_LOG_IN, user.optBoolean(ATTR_CAN_LOG_IN, false));
-        addAttr(builder, ATTR_LAST_ACTIVE, user.optString(ATTR_LAST_ACTIVE, null));
-        addAttr(builder, ATTR_REQUIRE_CERTIFICATE, user.optBoolean(ATTR_REQUIRE_CERTIFICATE, false));
-        addAttr(builder, ATTR_NET_ID, user.optString(ATTR_NET_ID, null));
-        addAttr(builder, ATTR_SELF_REGISTERED, user.optBoolean(ATTR_SELF_REGISTERED, false));
+        if (attributes.includes(ATTR_EMAIL)) {
+            addAttr(builder, ATTR_EMAIL, user.optString(ATTR_EMAIL, null));
+        }
+        if (attributes.includes(ATTR_CAN_LOG_IN)) {
+            addAttr(builder, ATTR_CAN_LOG_IN, user.optBoolean(ATTR_CAN_LOG_IN, false));
+        }
+        if (attributes.includes(ATTR_LAST_ACTIVE)) {
+            addAttr(builder, ATTR_LAST_ACTIVE, user.optString(ATTR_LAST_ACTIVE, null));
+        }
+        if (attributes.includes(ATTR_REQUIRE_CERTIFICATE)) {
+            addAttr(builder, ATTR_REQUIRE_CERTIFICATE, user.optBoolean(ATTR_REQUIRE_CERTIFICATE, false));
+        }
+        if (attributes.includes(ATTR_NET_ID)) {
+            addAttr(builder, ATTR_NET_ID, user.optString(ATTR_NET_ID, null));
+        }
+        if (attributes.includes(ATTR_SELF_REGISTERED)) {
+            addAttr(builder, ATTR_SELF_REGISTERED, user.optBoolean(ATTR_SELF_REGISTERED, false));
+        }
     
-        // Atributos adicionales en el campo `metadata` de la respuesta JSON
-        if (user.has("metadata")) {
-            JSONObject metadata = user.getJSONObject("metadata");
-            
-            addAttr(builder, ATTR_FIRST_NAME, getMetadataValue(metadata, ATTR_FIRST_NAME));
-            addAttr(builder, ATTR_LAST_NAME, getMetadataValue(metadata, ATTR_LAST_NAME));
-            addAttr(builder, ATTR_LANGUAGE, getMetadataValue(metadata, ATTR_LANGUAGE));
-            addAttr(builder, ATTR_ALERT_EMBARGO, getMetadataValue(metadata, ATTR_ALERT_EMBARGO));
-            addAttr(builder, ATTR_LICENSE_ACCEPTED, getMetadataValue(metadata, ATTR_LICENSE_ACCEPTED));
-            addAttr(builder, ATTR_LICENSE_ACCEPTED_DATE, getMetadataValue(metadata, ATTR_LICENSE_ACCEPTED_DATE));
-            addAttr(builder, ATTR_ORCID_SCOPE, getMetadataValue(metadata, ATTR_ORCID_SCOPE));
-            addAttr(builder, ATTR_ORCID, getMetadataValue(metadata, ATTR_ORCID));
-            addAttr(builder, ATTR_PHONE, getMetadataValue(metadata, ATTR_PHONE));
+        // Atributos adicionales en el campo `metadata`, decodificados en una pasada según la tabla
+        JSONObject metadata = user.optJSONObject("metadata");
+        if (metadata != null && attributes.includesAny(getMetadataMapping().getAttributeNames())) {
+            getMetadataMapping().decode(metadata, attributes, builder);
+        }
+
+        // Grupos del usuario, ya resueltos por página (embebidos o en lote)
+        if (memberships != null) {
+            builder.addAttribute(ATTR_ROLES, memberships.groupsOf(user));
         }
     
         return builder.build();
     }
 
-    private String getMetadataValue(JSONObject user, String key) {
-        if (user.has("metadata")) {
-            JSONObject metadata = user.getJSONObject("metadata");
-            if (metadata.has(key)) {
-                JSONArray values = metadata.getJSONArray(key);
-                if (values.length() > 0) {
-                    return values.getJSONObject(0).getString("value");
+    private ConnectorObject convertGroupToConnectorObject(JSONObject group, AttributeSelection attributes) {
+        ConnectorObjectBuilder builder = new ConnectorObjectBuilder();
+        builder.setObjectClass(ObjectClass.GROUP);
+        builder.setUid(new Uid(group.getString("uuid")));
+        builder.setName(group.optString("name", "unknown"));
+
+        if (attributes.includes(ATTR_GROUP_PERMANENT)) {
+            addAttr(builder, ATTR_GROUP_PERMANENT, group.optBoolean(ATTR_GROUP_PERMANENT, false));
+        }
+        if (attributes.includes(ATTR_GROUP_DESCRIPTION)) {
+            JSONObject metadata = group.optJSONObject("metadata");
+            JSONArray values = metadata != null ? metadata.optJSONArray(GROUP_DESCRIPTION_FIELD) : null;
+            if (values != null && !values.isEmpty()) {
+                addAttr(builder, ATTR_GROUP_DESCRIPTION, values.getJSONObject(0).optString("value", null));
+            }
+        }
+        return builder.build();
+    }
+
+    // ==============================
+    // Bloque de Sincronización (LiveSync)
+    // ==============================
+
+    // lastActive cambia con cada inicio de sesión: no se considera una modificación de la cuenta
+    private static final Set<String> SYNC_IGNORED_ATTRIBUTES = Set.of(ATTR_LAST_ACTIVE);
+
+    // DSpace no ofrece filtro ni orden por fecha de modificación de epersons, así que cada
+    // sync recorre el listado una vez y lo compara con el resumen guardado para la generación
+    // del token recibido (SyncDigestStore), emitiendo solo altas, cambios y bajas.
+    @Override
+    public void sync(ObjectClass objectClass, SyncToken token, SyncResultsHandler handler, OperationOptions options) {
+      ensureAuthManagerInitialized();
+        requireAccountSync(objectClass);
+        Path stateFile = getSyncStateFile();
+
+        synchronized (SyncDigestStore.lockFor(stateFile)) {
+            long latest = SyncDigestStore.latestGeneration(stateFile);
+            if (latest < 0 && token == null) {
+                // Sin estado previo no hay con qué comparar: se toma la línea base sin emitir cambios
+                LOG.warn("No sync state found in {0}, taking a baseline without reporting changes", stateFile);
+                SyncToken baseline = takeSyncSnapshot(stateFile, 1);
+                if (handler instanceof SyncTokenResultsHandler) {
+                    ((SyncTokenResultsHandler) handler).handleResult(baseline);
+                }
+                return;
+            }
+            // Sin token se parte de la última generación; un token sin línea base guardada
+            // (descartada, de otro fichero de estado o manipulado) no se puede comparar
+            Long requested = token != null ? toGeneration(token) : Long.valueOf(latest);
+            SyncDigestStore previous = requested != null ? SyncDigestStore.loadGeneration(stateFile, requested) : null;
+            if (previous == null) {
+                throw new ConnectorException("Sync token " + (token != null ? token.getValue() : requested) + " has no stored state in " + stateFile
+                        + " (latest generation: " + latest + "), reset the sync token and run a reconciliation");
+            }
+
+            // Los deltas llevan el token de partida: si midPoint se detiene a medias, el
+            // siguiente sync vuelve a comparar con la misma línea base y no se pierde nada
+            SyncToken baseToken = new SyncToken(previous.getGeneration());
+            SyncToken newToken = new SyncToken(latest + 1);
+            SyncDigestStore current = new SyncDigestStore(latest + 1);
+            int[] changes = new int[1];
+            boolean[] stopped = new boolean[1];
+            String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT;
+            handlePaged(endpoint, "epersons", null, null,
+                    user -> convertUserToConnectorObject(user, AttributeSelection.DEFAULTS, null),
+                    object -> {
+                        long digest = SyncDigestStore.digest(object, SYNC_IGNORED_ATTRIBUTES);
+                        Long before = previous.get(object.getUid().getUidValue());
+                        current.put(object.getUid().getUidValue(), digest);
+                        if (before != null && before == digest) {
+                            return true;
+                        }
+                        changes[0]++;
+                        SyncDelta delta = new SyncDeltaBuilder()
+                                .setDeltaType(before == null ? SyncDeltaType.CREATE : SyncDeltaType.UPDATE)
+                                .setToken(baseToken)
+                                .setObject(object)
+                                .build();
+                        return !(stopped[0] = !handler.handle(delta));
+                    }, null);
+
+            for (String uuid : stopped[0] ? Collections.<String>emptyList() : previous.missingFrom(current)) {
+                changes[0]++;
+                SyncDelta delta = new SyncDeltaBuilder()
+                        .setDeltaType(SyncDeltaType.DELETE)
+                        .setToken(baseToken)
+                        .setObjectClass(ObjectClass.ACCOUNT)
+                        .setUid(new Uid(uuid))
+                        .build();
+                if (!handler.handle(delta)) {
+                    stopped[0] = true;
+                    break;
                 }
             }
+
+            // Si midPoint detuvo el sync, el estado no se guarda y los cambios se repiten la próxima vez
+            if (stopped[0]) {
+                LOG.ok("Sync stopped by the handler after {0} change(s), state not saved", changes[0]);
+                return;
+            }
+            // La generación de partida se conserva: si midPoint no guarda newToken, se repite con ella
+            current.saveGeneration(stateFile);
+            LOG.ok("Sync finished, {0} change(s) among {1} epersons, token: {2}", changes[0], current.size(), newToken.getValue());
+            if (handler instanceof SyncTokenResultsHandler) {
+                ((SyncTokenResultsHandler) handler).handleResult(newToken);
+            }
+        }
+    }
+
+    // Toma una nueva línea base: los cambios posteriores a este token serán los del próximo sync
+    @Override
+    public SyncToken getLatestSyncToken(ObjectClass objectClass) {
+      ensureAuthManagerInitialized();
+        requireAccountSync(objectClass);
+        Path stateFile = getSyncStateFile();
+        synchronized (SyncDigestStore.lockFor(stateFile)) {
+            return takeSyncSnapshot(stateFile, Math.max(1, SyncDigestStore.latestGeneration(stateFile) + 1));
         }
-        return null;
+    }
+
+    private SyncToken takeSyncSnapshot(Path stateFile, long generation) {
+        SyncDigestStore snapshot = new SyncDigestStore(generation);
+        String endpoint = getConfiguration().getServiceAddress() + USERS_ENDPOINT;
+        handlePaged(endpoint, "epersons", null, null,
+                user -> convertUserToConnectorObject(user, AttributeSelection.DEFAULTS, null),
+                object -> {
+                    snapshot.put(object.getUid().getUidValue(), SyncDigestStore.digest(object, SYNC_IGNORED_ATTRIBUTES));
+                    return true;
+                }, null);
+        snapshot.saveGeneration(stateFile);
+        LOG.ok("Sync baseline with {0} epersons saved to {1}, token: {2}", snapshot.size(), stateFile, generation);
+        return new SyncToken(generation);
+    }
+
+    private static void requireAccountSync(ObjectClass objectClass) {
+        if (!objectClass.is(ObjectClass.ACCOUNT_NAME)) {
+            throw new UnsupportedOperationException("Sync operation is not supported for object class: " + objectClass.getObjectClassValue());
+        }
+    }
+
+    private static Long toGeneration(SyncToken token) {
+        Object value = token.getValue();
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.valueOf(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Debe configurarse: el estado tiene que sobrevivir a reinicios y ser el mismo en todos los
+    // nodos de midPoint que puedan ejecutar el sync (almacenamiento compartido en un clúster)
+    private Path getSyncStateFile() {
+        String configured = getConfiguration().getSyncStateFile();
+        if (configured == null || configured.isBlank()) {
+            throw new ConfigurationException("syncStateFile must be configured to use LiveSync");
+        }
+        return Paths.get(configured);
     }
 
     // ==============================
     // Bloque de Manejo de Solicitudes HTTP
     // ==============================
 
-    protected JSONObject callRequest(ClassicHttpRequest request, JSONObject jsonObject) {
+    // Señal interna de respuesta 401 para renovar el token y repetir la petición
+    private static final class TokenRejectedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private TokenRejectedException() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Señal interna de respuesta 429/503: DSpace está saturado
+    private static final class ServerBusyException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+        private final long retryAfterMs;
+
+        private ServerBusyException(int statusCode, long retryAfterMs) {
+            super(null, null, false, false);
+            this.statusCode = statusCode;
+            this.retryAfterMs = retryAfterMs;
+        }
+    }
+
+    // Retardo base del backoff exponencial entre reintentos
+    private static final long RETRY_BASE_DELAY_MS = 200;
+
+    // Ejecuta la petición con el token vigente, dentro del límite adaptativo de concurrencia:
+    // - 401: se descarta ese token y se repite una sola vez con uno nuevo
+    // - 429/503 y errores de conexión: se reintenta hasta maxRetries con la espera de
+    //   Retry-After o backoff exponencial con jitter. 429 se reintenta siempre (DSpace no
+    //   procesó la petición); 503 y los errores de E/S solo en métodos idempotentes.
+    // Las entidades usadas son repetibles, así que la petición se puede reenviar tal cual.
+    private <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> handler) throws IOException {
         ensureAuthManagerInitialized();
-        request.setHeader("Authorization", "Bearer " + authManager.getJwtToken());
+        int maxRetries = getConfiguration().getMaxRetries();
+        boolean idempotent = isIdempotent(request.getMethod());
+        boolean reauthenticated = false;
+        int exchanges = 0;
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, ACCEPTED_CONTENT_CODINGS);
+        for (int attempt = 0; ; attempt++) {
+            String token = getJwtToken();
+            request.setHeader("Authorization", "Bearer " + token);
+            boolean rejectUnauthorized = !reauthenticated;
+            exchanges++;
+            // Código, llegada y cuerpo de la respuesta de este intento, para métricas y JFR
+            int[] status = {ConnectorMetrics.IO_ERROR};
+            long[] responseAt = new long[1];
+            CountingEntity[] received = new CountingEntity[1];
+            DSpaceEvents.HttpExchange event = new DSpaceEvents.HttpExchange();
+            long queued = System.nanoTime();
+            long start = limiter.acquire(getConfiguration().getConnectionRequestTimeout());
+            event.begin();
+            try {
+                return httpClientManager.execute(request, response -> {
+                    responseAt[0] = System.nanoTime();
+                    int code = response.getCode();
+                    status[0] = code;
+                    if (response.getEntity() != null) {
+                        received[0] = new CountingEntity(response.getEntity());
+                        response.setEntity(decoded(response, received[0]));
+                    }
+                    if (code == HttpStatus.SC_TOO_MANY_REQUESTS || code == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                        limiter.onOverload(start);
+                        throw new ServerBusyException(code, retryAfterMillis(response));
+                    }
+                    limiter.onSuccess(System.nanoTime() - start);
+                    if (code == HttpStatus.SC_UNAUTHORIZED && rejectUnauthorized) {
+                        throw new TokenRejectedException();
+                    }
+                    return handler.handleResponse(response);
+                });
+            } catch (TokenRejectedException e) {
+                LOG.ok("Request {0} {1} got 401, re-authenticating and retrying once", request.getMethod(), request.getRequestUri());
+                authManager.invalidate(token);
+                reauthenticated = true;
+                attempt--;
+            } catch (ServerBusyException e) {
+                String message = "DSpace answered " + e.statusCode + " to " + request.getMethod() + " " + request.getRequestUri();
+                if (attempt >= maxRetries || (e.statusCode != HttpStatus.SC_TOO_MANY_REQUESTS && !idempotent)) {
+                    throw RetryableException.wrap(message + " (" + attempt + " retries)", (Throwable) null);
+                }
+                long delay = retryDelay(attempt, e.retryAfterMs);
+                LOG.warn("{0}, retrying in {1} ms (limit {2})", message, delay, limiter.getLimit());
+                sleepBeforeRetry(delay);
+            } catch (IOException e) {
+                if (e instanceof SocketTimeoutException) {
+                    limiter.onOverload(start);
+                }
+                if (attempt >= maxRetries || !idempotent) {
+                    throw e;
+                }
+                long delay = retryDelay(attempt, -1);
+                LOG.warn("{0} {1} failed: {2}, retrying in {3} ms", request.getMethod(), request.getRequestUri(), e.getMessage(), delay);
+                sleepBeforeRetry(delay);
+            } finally {
+                limiter.release();
+                long end = System.nanoTime();
+                HttpEntity sent = request.getEntity();
+                long bytesSent = sent != null ? sent.getContentLength() : 0;
+                long bytesReceived = received[0] != null ? received[0].getByteCount() : 0;
+                metrics.recordExchange(request.getMethod(), request.getRequestUri(), status[0], end - start,
+                        bytesSent, bytesReceived);
+                if (event.shouldCommit()) {
+                    boolean answered = status[0] != ConnectorMetrics.IO_ERROR;
+                    event.method = request.getMethod();
+                    event.endpoint = ConnectorMetrics.endpointOf(request.getRequestUri());
+                    event.status = status[0];
+                    event.attempt = exchanges;
+                    event.bytesSent = bytesSent;
+                    event.bytesReceived = bytesReceived;
+                    event.limiterWait = start - queued;
+                    event.timeToFirstByte = (answered ? responseAt[0] : end) - start;
+                    event.decodeTime = answered ? end - responseAt[0] : 0;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    // Listados y objetos HAL de DSpace son JSON muy repetitivo: comprimidos ocupan una fracción.
+    // La compresión se negocia aquí (no en el cliente HTTP) para que sea igual con los dos
+    // transportes y para contar en las métricas los bytes que viajan por la red.
+    private static final String ACCEPTED_CONTENT_CODINGS = "gzip, deflate";
+
+    // Descompresión en streaming según Content-Encoding, por encima del cuerpo ya contado
+    private static HttpEntity decoded(ClassicHttpResponse response, HttpEntity entity) {
+        String coding = headerValue(response, HttpHeaders.CONTENT_ENCODING);
+        switch (coding != null ? coding.trim().toLowerCase(Locale.ROOT) : "") {
+            case "gzip":
+            case "x-gzip":
+                return new GzipDecompressingEntity(entity);
+            case "deflate":
+                return new DeflateDecompressingEntity(entity);
+            default:
+                return entity;
+        }
+    }
+
+    // Cuerpo de respuesta que cuenta los bytes leídos. Si el handler no lo lee entero (p.ej.
+    // respuestas descartadas) se toma el Content-Length, que el cliente consume igualmente.
+    private static final class CountingEntity extends HttpEntityWrapper {
+        private long count;
+
+        private CountingEntity(HttpEntity entity) {
+            super(entity);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream content = super.getContent();
+            return content == null ? null : new FilterInputStream(content) {
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b >= 0) {
+                        count++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int n = super.read(buffer, offset, length);
+                    if (n > 0) {
+                        count += n;
+                    }
+                    return n;
+                }
+            };
+        }
+
+        private long getByteCount() {
+            return Math.max(count, getContentLength());
+        }
+    }
+
+    private static boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "PUT".equals(method)
+                || "DELETE".equals(method) || "OPTIONS".equals(method);
+    }
+
+    // Retry-After en segundos o como fecha HTTP; -1 si no viene o no se entiende
+    private static long retryAfterMillis(ClassicHttpResponse response) {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null || header.getValue() == null) {
+            return -1;
+        }
+        String value = header.getValue().trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000L);
+        } catch (NumberFormatException e) {
+            Instant date = DateUtils.parseStandardDate(value);
+            return date != null ? Math.max(0, date.toEpochMilli() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    // Retry-After si DSpace lo indica; si no, backoff exponencial con jitter (entre la
+    // mitad y el total del retardo del intento).
+    // En ambos casos acotado por retryMaxDelay.
+    private long retryDelay(int attempt, long retryAfterMs) {
+        long maxDelay = getConfiguration().getRetryMaxDelay();
+        if (retryAfterMs >= 0) {
+            return Math.min(retryAfterMs, maxDelay);
+        }
+        long ceiling = Math.min(maxDelay, RETRY_BASE_DELAY_MS << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+    }
+
+    private static void sleepBeforeRetry(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OperationTimeoutException("Interrupted while waiting to retry a DSpace request", e);
+        }
+    }
+
+    // Cabeceras y cuerpo JSON de la petición. Visible en el paquete para los benchmarks.
+    static void setJsonEntity(ClassicHttpRequest request, JSONObject jsonObject) {
         request.setHeader("Content-Type", "application/json");
         request.setHeader("Accept", "application/json");
 
-        try {
-            StringEntity entity = new StringEntity(jsonObject.toString(), ContentType.APPLICATION_JSON);
+        StringEntity entity = new StringEntity(jsonObject.toString(), ContentType.APPLICATION_JSON);
+        if (request instanceof HttpEntityContainer) {
+            ((HttpEntityContainer) request).setEntity(entity);
+        } else {
+            throw new ConnectorException("Request does not support entity");
+        }
+    }
 
-            if (request instanceof HttpEntityContainer) {
-                ((HttpEntityContainer) request).setEntity(entity);
-            } else {
-                throw new ConnectorException("Request does not support entity");
-            }
+    protected JSONObject callRequest(ClassicHttpRequest request, JSONObject jsonObject) {
+        ensureAuthManagerInitialized();
+        setJsonEntity(request, jsonObject);
 
-            try (CloseableHttpResponse response = getHttpClient().execute(request)) {
+        try {
+            return execute(request, response -> {
                 processResponseErrors(response);
                 String result = EntityUtils.toString(response.getEntity());
                 return new JSONObject(result);
-            }
-        } catch (IOException | ParseException e) {
+            });
+        } catch (IOException e) {
             LOG.error("Error executing request", e);
             throw new ConnectorException("Error executing request", e);
         }
@@ -511,22 +1920,53 @@ public class RestUsersConnector
 
     protected String callRequest(ClassicHttpRequest request) {
         ensureAuthManagerInitialized();
-        request.setHeader("Authorization", "Bearer " + authManager.getJwtToken());
-        request.setHeader("Content-Type", "application/json");
+        if (!request.containsHeader("Content-Type")) {
+            request.setHeader("Content-Type", "application/json");
+        }
 
-        try (CloseableHttpClient httpClient = HttpClients.createDefault();
-             CloseableHttpResponse response = httpClient.execute(request)) {
+        try {
+            return execute(request, response -> {
+                processResponseErrors(response);
+                return response.getEntity() != null ? EntityUtils.toString(response.getEntity()) : null;
+            });
+        } catch (IOException e) {
+            LOG.error("Error executing request", e);
+            throw new ConnectorException("Error executing request", e);
+        }
+    }
 
-            processResponseErrors(response);
-            return EntityUtils.toString(response.getEntity());
+    // Lector del cuerpo de la respuesta, para decodificar en streaming sin pasar por un String
+    @FunctionalInterface
+    protected interface ResponseReader<T> {
+        T read(Reader reader) throws IOException;
+    }
 
-        } catch (IOException | ParseException e) {
+    protected <T> T callRequest(ClassicHttpRequest request, ResponseReader<T> responseReader) {
+        ensureAuthManagerInitialized();
+        request.setHeader("Accept", "application/json");
+
+        try {
+            return execute(request, response -> {
+                processResponseErrors(response);
+                return readEntity(response, responseReader);
+            });
+        } catch (IOException e) {
             LOG.error("Error executing request", e);
             throw new ConnectorException("Error executing request", e);
         }
     }
 
-    public void processResponseErrors(CloseableHttpResponse response) {
+    private static <T> T readEntity(ClassicHttpResponse response, ResponseReader<T> responseReader) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            // p.ej. 204 No Content de las búsquedas sin resultado
+            return null;
+        }
+        Charset charset = ContentType.parseLenient(entity.getContentType()).getCharset(StandardCharsets.UTF_8);
+        return responseReader.read(new InputStreamReader(entity.getContent(), charset));
+    }
+
+    public void processResponseErrors(ClassicHttpResponse response) {
         int statusCode = response.getCode();
         if (statusCode >= 200 && statusCode < 300) {
             return;
@@ -557,6 +1997,10 @@ public class RestUsersConnector
                 throw new UnknownUidException(message);
             case 409:
                 throw new AlreadyExistsException(message);
+            case 429:
+            case 503:
+                // DSpace saturado: el llamante puede reintentar más tarde
+                throw RetryableException.wrap(message, (Throwable) null);
             default:
                 throw new ConnectorException(message);
         }
@@ -574,7 +2018,7 @@ public class RestUsersConnector
 
         try {
             // Verificar que podemos obtener un token JWT
-            String jwtToken = authManager.getJwtToken();
+            String jwtToken = getJwtToken();
             LOG.ok("Token JWT obtenido exitosamente.");
 
             // Realizar una solicitud simple para verificar la conectividad
@@ -582,6 +2026,13 @@ public class RestUsersConnector
             HttpGet request = new HttpGet(endpoint);
             String response = callRequest(request);
             LOG.ok("Respuesta recibida durante la prueba: {0}", response);
+            LOG.ok("Estadísticas del pool de conexiones: {0}", getConnectionPoolStats());
+            LOG.ok("Estadísticas de la caché de objetos: {0}", getCacheStats());
+            LOG.ok("Lecturas condicionales: {0}", getConditionalReadStats());
+            LOG.ok("Límite de concurrencia adaptativo: {0}", limiter);
+            LOG.ok("Métricas del conector: {0}", metrics);
+            LOG.ok("Logins de la sesión: {0} (fallidos: {1}), sesiones compartidas en la JVM: {2}",
+                    authManager.getLoginCount(), authManager.getLoginFailures(), SessionRegistry.size());
 
             LOG.ok("Prueba de conexión exitosa.");
         } catch (Exception e) {
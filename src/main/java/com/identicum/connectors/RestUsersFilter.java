@@ -1,17 +1,28 @@
 package com.identicum.connectors;
 
+import java.util.List;
+import java.util.Map;
+
 public class RestUsersFilter
 {
 	public String byUsername;
     public String byUid;
     public String byEmail;
     public String byName;
+    public String byNetId;
+    // StartsWith sobre email, nombre o netid y sus And/Or: alternativas (Or), cada una con el
+    // prefijo exigido a cada campo JSON (And). Lista vacía: prefijos incompatibles, nada cumple.
+    public List<Map<String, String>> byPrefix;
 
     @Override
     public String toString() {
         return "UserFilter{" +
                 "byUsername='" + byUsername + '\'' +
                 ", byUid=" + byUid +
+                ", byEmail='" + byEmail + '\'' +
+                ", byName='" + byName + '\'' +
+                ", byNetId='" + byNetId + '\'' +
+                ", byPrefix=" + byPrefix +
                 '}';
     }
 	
@@ -6,10 +6,24 @@ import org.identityconnectors.framework.common.objects.Name;
 import org.identityconnectors.framework.common.objects.Uid;
 import org.identityconnectors.framework.common.objects.filter.AbstractFilterTranslator;
 import org.identityconnectors.framework.common.objects.filter.EqualsFilter;
+import org.identityconnectors.framework.common.objects.filter.StartsWithFilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class RestUsersFilterTranslator extends AbstractFilterTranslator<RestUsersFilter>
 {
 	private static final Log LOG = Log.getLog(RestUsersFilter.class);
+
+    // Atributos con StartsWith trasladable y el campo JSON del eperson/grupo que se compara
+    private static final Map<String, String> PREFIX_FIELDS = Map.of(
+            Name.NAME, "name",
+            RestUsersConnector.ATTR_USERNAME, "name",
+            RestUsersConnector.ATTR_EMAIL, "email",
+            RestUsersConnector.ATTR_NET_ID, "netid");
 	
 	@Override
     protected RestUsersFilter createEqualsExpression(EqualsFilter filter, boolean not) {
@@ -37,6 +51,102 @@ public class RestUsersFilterTranslator extends AbstractFilterTranslator<RestUser
                 return lf;
             }
         }
+        else if (Name.NAME.equals(attr.getName())) {
+            if (attr.getValue() != null && attr.getValue().get(0) != null) {
+                RestUsersFilter lf = new RestUsersFilter();
+                lf.byName = String.valueOf(attr.getValue().get(0));
+                return lf;
+            }
+        }
+        else if (RestUsersConnector.ATTR_EMAIL.equals(attr.getName())) {
+            if (attr.getValue() != null && attr.getValue().get(0) != null) {
+                RestUsersFilter lf = new RestUsersFilter();
+                lf.byEmail = String.valueOf(attr.getValue().get(0));
+                return lf;
+            }
+        }
+        else if (RestUsersConnector.ATTR_NET_ID.equals(attr.getName())) {
+            if (attr.getValue() != null && attr.getValue().get(0) != null) {
+                RestUsersFilter lf = new RestUsersFilter();
+                lf.byNetId = String.valueOf(attr.getValue().get(0));
+                return lf;
+            }
+        }
         return null;
     }
+
+    // Los buckets de reconciliación de midPoint llegan como StartsWith (o And/Or de ellos)
+    @Override
+    protected RestUsersFilter createStartsWithExpression(StartsWithFilter filter, boolean not) {
+        LOG.ok("createStartsWithExpression, filter: {0}, not: {1}", filter, not);
+
+        String field = PREFIX_FIELDS.get(filter.getName());
+        String prefix = filter.getValue();
+        // Un prefijo vacío lo cumplen todos: no se traslada y se hace el listado completo
+        if (not || field == null || prefix == null || prefix.isEmpty()) {
+            return null;
+        }
+        RestUsersFilter lf = new RestUsersFilter();
+        lf.byPrefix = Collections.singletonList(Collections.singletonMap(field, prefix));
+        return lf;
+    }
+
+    @Override
+    protected RestUsersFilter createOrExpression(RestUsersFilter leftExpression, RestUsersFilter rightExpression) {
+        if (leftExpression.byPrefix == null || rightExpression.byPrefix == null) {
+            return null; // ICF lanza cada lado como búsqueda aparte
+        }
+        List<Map<String, String>> alternatives = new ArrayList<>(leftExpression.byPrefix);
+        for (Map<String, String> alternative : rightExpression.byPrefix) {
+            if (!alternatives.contains(alternative)) {
+                alternatives.add(alternative);
+            }
+        }
+        RestUsersFilter lf = new RestUsersFilter();
+        lf.byPrefix = alternatives;
+        return lf;
+    }
+
+    @Override
+    protected RestUsersFilter createAndExpression(RestUsersFilter leftExpression, RestUsersFilter rightExpression) {
+        if (leftExpression.byPrefix == null) {
+            return null; // ICF usa el lado izquierdo y comprueba el resto sobre los resultados
+        }
+        if (rightExpression.byPrefix == null) {
+            // La igualdad es más selectiva; el prefijo lo vuelve a comprobar ICF
+            return rightExpression;
+        }
+        List<Map<String, String>> alternatives = new ArrayList<>();
+        for (Map<String, String> left : leftExpression.byPrefix) {
+            for (Map<String, String> right : rightExpression.byPrefix) {
+                Map<String, String> merged = intersect(left, right);
+                if (merged != null && !alternatives.contains(merged)) {
+                    alternatives.add(merged);
+                }
+            }
+        }
+        RestUsersFilter lf = new RestUsersFilter();
+        lf.byPrefix = alternatives;
+        return lf;
+    }
+
+    // Prefijos de ambos lados; en un mismo campo el más largo si uno contiene al otro, o null
+    // si son incompatibles ("ab" y "ac")
+    private static Map<String, String> intersect(Map<String, String> left, Map<String, String> right) {
+        Map<String, String> merged = new HashMap<>(left);
+        for (Map.Entry<String, String> entry : right.entrySet()) {
+            String current = merged.get(entry.getKey());
+            String prefix = entry.getValue();
+            if (current == null || startsWithIgnoreCase(prefix, current)) {
+                merged.put(entry.getKey(), prefix);
+            } else if (!startsWithIgnoreCase(current, prefix)) {
+                return null;
+            }
+        }
+        return merged;
+    }
+
+    static boolean startsWithIgnoreCase(String value, String prefix) {
+        return value.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
 }
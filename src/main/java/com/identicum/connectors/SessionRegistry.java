@@ -0,0 +1,96 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.logging.Log;
+import org.identityconnectors.common.security.GuardedString;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Registro de sesiones DSpace de la JVM. El framework mantiene un pool de instancias del
+// conector; todas las que apuntan al mismo servicio con el mismo usuario comparten una única
+// sesión (cookies CSRF + JWT), así un reinicio no provoca un login por instancia.
+public final class SessionRegistry {
+
+    private static final Log LOG = Log.getLog(SessionRegistry.class);
+
+    // Sesión compartida y número de instancias del conector que la usan
+    private static final class Entry {
+        private final AuthManager session;
+        private int references;
+
+        private Entry(AuthManager session) {
+            this.session = session;
+        }
+    }
+
+    private static final Map<String, Entry> SESSIONS = new ConcurrentHashMap<>();
+
+    private SessionRegistry() {
+    }
+
+    // La clave incluye un resumen de la contraseña: si cambia en la configuración se abre otra
+    // sesión, y la anterior desaparece cuando la liberan las instancias que aún la usan
+    public static synchronized AuthManager acquire(String serviceAddress, String username, GuardedString password) {
+        String key = serviceAddress + "|" + username + "|" + passwordDigest(password);
+        Entry entry = SESSIONS.computeIfAbsent(key, k -> {
+            LOG.ok("Creating shared DSpace session for {0} at {1}", username, serviceAddress);
+            return new Entry(new AuthManager(serviceAddress, username, password));
+        });
+        entry.references++;
+        return entry.session;
+    }
+
+    // Lo llama dispose(): sin instancias que la usen, la sesión (y su contraseña) se descarta
+    public static synchronized void release(AuthManager session) {
+        for (Map.Entry<String, Entry> registered : SESSIONS.entrySet()) {
+            Entry entry = registered.getValue();
+            if (entry.session == session) {
+                if (--entry.references <= 0) {
+                    SESSIONS.remove(registered.getKey());
+                    LOG.ok("Closing shared DSpace session, no connector instances left using it");
+                }
+                return;
+            }
+        }
+    }
+
+    public static int size() {
+        return SESSIONS.size();
+    }
+
+    // Logins de todas las sesiones de la JVM
+    public static long totalLogins() {
+        long total = 0;
+        for (Entry entry : SESSIONS.values()) {
+            total += entry.session.getLoginCount();
+        }
+        return total;
+    }
+
+    // Solo se guarda el resumen: la contraseña en claro no sale del GuardedString
+    private static String passwordDigest(GuardedString password) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        password.access(clearChars -> {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(clearChars));
+            sha.update(bytes);
+            Arrays.fill(bytes.array(), (byte) 0);
+        });
+        byte[] hash = sha.digest();
+        StringBuilder hex = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            hex.append(String.format("%02x", hash[i]));
+        }
+        return hex.toString();
+    }
+}
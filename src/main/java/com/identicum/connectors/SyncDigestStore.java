@@ -0,0 +1,229 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.Attribute;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Estado persistente de LiveSync: un resumen de 64 bits por eperson (uuid -> digest) y el
+// número de generación que se usa como SyncToken. DSpace no permite filtrar epersons por
+// fecha de modificación, así que cada sync recorre el listado y compara con este estado.
+//
+// Cada generación se guarda en su propio fichero (<syncStateFile>.<generación>) y se
+// conservan las últimas RETAINED_GENERATIONS: si midPoint no llegó a guardar el token de un
+// sync (fallo, reintento), el siguiente vuelve a comparar con la línea base del token que tiene.
+//
+// Formato binario: MAGIC, VERSION, generación, número de entradas y, por entrada,
+// uuid (2 x long) + digest (long), 24 bytes por eperson.
+public final class SyncDigestStore {
+
+    private static final int MAGIC = 0x44534443; // "DSDC"
+    private static final int VERSION = 1;
+
+    public static final int RETAINED_GENERATIONS = 3;
+
+    // Un único sync/snapshot a la vez por fichero, aunque haya varias instancias del conector
+    private static final Map<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private final long generation;
+    private final Map<UUID, Long> digests;
+
+    public SyncDigestStore(long generation) {
+        this(generation, new HashMap<>());
+    }
+
+    private SyncDigestStore(long generation, Map<UUID, Long> digests) {
+        this.generation = generation;
+        this.digests = digests;
+    }
+
+    public static Object lockFor(Path file) {
+        return LOCKS.computeIfAbsent(file.toAbsolutePath().normalize(), path -> new Object());
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int size() {
+        return digests.size();
+    }
+
+    public Long get(String uuid) {
+        return digests.get(UUID.fromString(uuid));
+    }
+
+    public void put(String uuid, long digest) {
+        digests.put(UUID.fromString(uuid), digest);
+    }
+
+    // uuids de este estado que no aparecen en el otro (epersons borrados)
+    public List<String> missingFrom(SyncDigestStore other) {
+        List<String> missing = new ArrayList<>();
+        for (UUID uuid : digests.keySet()) {
+            if (!other.digests.containsKey(uuid)) {
+                missing.add(uuid.toString());
+            }
+        }
+        return missing;
+    }
+
+    // ==============================
+    // Resumen de un ConnectorObject
+    // ==============================
+
+    // SHA-256 truncado a 64 bits de los atributos ordenados por nombre, excluyendo los indicados
+    public static long digest(ConnectorObject object, Set<String> excludedAttributes) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        List<Attribute> attributes = new ArrayList<>(object.getAttributes());
+        attributes.sort((a, b) -> a.getName().compareTo(b.getName()));
+        for (Attribute attribute : attributes) {
+            if (excludedAttributes.contains(attribute.getName())) {
+                continue;
+            }
+            sha.update(attribute.getName().getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) '=');
+            if (attribute.getValue() != null) {
+                for (Object value : attribute.getValue()) {
+                    sha.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+                    sha.update((byte) 0);
+                }
+            }
+            sha.update((byte) '\n');
+        }
+        byte[] hash = sha.digest();
+        long digest = 0;
+        for (int i = 0; i < 8; i++) {
+            digest = (digest << 8) | (hash[i] & 0xff);
+        }
+        return digest;
+    }
+
+    // ==============================
+    // Persistencia
+    // ==============================
+
+    // null si el fichero todavía no existe
+    private static SyncDigestStore load(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new ConnectorException("Unsupported sync state file: " + file);
+            }
+            long generation = in.readLong();
+            int count = in.readInt();
+            Map<UUID, Long> digests = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            for (int i = 0; i < count; i++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                digests.put(uuid, in.readLong());
+            }
+            return new SyncDigestStore(generation, digests);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new ConnectorException("Error reading sync state file " + file, e);
+        }
+    }
+
+    // Última generación guardada junto a base, -1 si no hay ninguna
+    public static long latestGeneration(Path base) {
+        long latest = -1;
+        for (long generation : generations(base)) {
+            latest = Math.max(latest, generation);
+        }
+        return latest;
+    }
+
+    // null si esa generación no existe o ya se descartó
+    public static SyncDigestStore loadGeneration(Path base, long generation) {
+        return load(generationFile(base, generation));
+    }
+
+    // Guarda esta generación y descarta las que quedan fuera de las RETAINED_GENERATIONS últimas
+    public void saveGeneration(Path base) {
+        save(generationFile(base, generation));
+        for (long old : generations(base)) {
+            if (old <= generation - RETAINED_GENERATIONS) {
+                try {
+                    Files.deleteIfExists(generationFile(base, old));
+                } catch (IOException e) {
+                    throw new ConnectorException("Error removing sync state file " + generationFile(base, old), e);
+                }
+            }
+        }
+    }
+
+    private static Path generationFile(Path base, long generation) {
+        return base.resolveSibling(base.getFileName() + "." + generation);
+    }
+
+    private static List<Long> generations(Path base) {
+        Path absolute = base.toAbsolutePath();
+        String prefix = absolute.getFileName() + ".";
+        List<Long> generations = new ArrayList<>();
+        if (!Files.isDirectory(absolute.getParent())) {
+            return generations;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(absolute.getParent())) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String suffix = name.startsWith(prefix) ? name.substring(prefix.length()) : "";
+                // Los .tmp de una escritura interrumpida no cuentan
+                if (!suffix.isEmpty() && suffix.chars().allMatch(Character::isDigit)) {
+                    generations.add(Long.parseLong(suffix));
+                }
+            }
+        } catch (IOException e) {
+            throw new ConnectorException("Error listing sync state files of " + base, e);
+        }
+        return generations;
+    }
+
+    // Se escribe a un fichero temporal y se renombra, para no dejar nunca un estado a medias
+    private void save(Path file) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(generation);
+                out.writeInt(digests.size());
+                for (Map.Entry<UUID, Long> entry : digests.entrySet()) {
+                    out.writeLong(entry.getKey().getMostSignificantBits());
+                    out.writeLong(entry.getKey().getLeastSignificantBits());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new ConnectorException("Error writing sync state file " + file, e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.exceptions.OperationTimeoutException;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class AdaptiveLimiterTest {
+
+    @Test
+    public void acquireWaitsForAFreeSlot() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 4);
+        limiter.acquire(10);
+        limiter.acquire(10);
+        assertEquals(limiter.getInFlight(), 2);
+        try {
+            limiter.acquire(10);
+            throw new AssertionError("acquire over the limit should time out");
+        } catch (OperationTimeoutException expected) {
+            // sin hueco libre
+        }
+        limiter.release();
+        limiter.acquire(10);
+        assertEquals(limiter.getInFlight(), 2);
+    }
+
+    @Test
+    public void fastResponsesRaiseTheLimitUpToTheMaximum() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(1, 3);
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(10);
+            limiter.onSuccess(1_000_000);
+            limiter.release();
+        }
+        assertEquals(limiter.getLimit(), 3);
+    }
+
+    @Test
+    public void slowResponsesDoNotRaiseTheLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 8);
+        limiter.acquire(10);
+        limiter.onSuccess(1_000_000);
+        for (int i = 0; i < 50; i++) {
+            limiter.onSuccess(10_000_000);
+        }
+        limiter.release();
+        assertEquals(limiter.getLimit(), 2);
+    }
+
+    @Test
+    public void aBurstOfOverloadsReducesOnce() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(8, 8);
+        long first = limiter.acquire(10);
+        long second = limiter.acquire(10);
+        limiter.onOverload(first);
+        limiter.onOverload(second);
+        assertEquals(limiter.getLimit(), 5);
+        // Una petición iniciada después de la reducción sí vuelve a reducir
+        limiter.release();
+        limiter.release();
+        limiter.onOverload(limiter.acquire(10));
+        assertEquals(limiter.getLimit(), 3);
+    }
+
+    @Test
+    public void theLimitNeverDropsBelowOne() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2);
+        for (int i = 0; i < 10; i++) {
+            long start = limiter.acquire(10);
+            limiter.onOverload(start);
+            limiter.release();
+        }
+        assertEquals(limiter.getLimit(), 1);
+    }
+
+    @Test
+    public void limitersAreSharedByServiceAddress() {
+        AdaptiveLimiter limiter = AdaptiveLimiter.forService("http://limiter-test.example.org/server", 4);
+        assertSame(AdaptiveLimiter.forService("http://limiter-test.example.org/server", 4), limiter);
+        assertEquals(limiter.getLimit(), 2);
+        // El máximo sigue a la última configuración
+        AdaptiveLimiter.forService("http://limiter-test.example.org/server", 1);
+        assertEquals(limiter.getLimit(), 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.SearchResult;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.spi.SearchResultsHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Conectores de prueba contra el DSpace simulado de los benchmarks (FakeDSpace)
+final class FakeDSpaceSupport {
+
+    private FakeDSpaceSupport() {
+    }
+
+    static RestUsersConfiguration configuration(FakeDSpace dspace) {
+        RestUsersConfiguration configuration = new RestUsersConfiguration();
+        configuration.setServiceAddress(dspace.getServiceAddress());
+        configuration.setUsername(dspace.getUsername());
+        configuration.setPassword(new GuardedString(dspace.getPassword().toCharArray()));
+        configuration.setSchemaDiscovery(false);
+        return configuration;
+    }
+
+    static RestUsersConnector connector(RestUsersConfiguration configuration) {
+        configuration.validate();
+        RestUsersConnector connector = new RestUsersConnector();
+        connector.init(configuration);
+        return connector;
+    }
+
+    // ==============================
+    // Búsquedas
+    // ==============================
+
+    // Resultados de una búsqueda y el SearchResult final
+    static final class Collected implements SearchResultsHandler {
+        final List<ConnectorObject> objects = new ArrayList<>();
+        SearchResult result;
+
+        @Override
+        public boolean handle(ConnectorObject object) {
+            objects.add(object);
+            return true;
+        }
+
+        @Override
+        public void handleResult(SearchResult result) {
+            this.result = result;
+        }
+
+        List<String> names() {
+            List<String> names = new ArrayList<>();
+            for (ConnectorObject object : objects) {
+                names.add(object.getName().getNameValue());
+            }
+            return names;
+        }
+    }
+
+    // Traduce el filtro como lo hace ICF y lanza una búsqueda por cada consulta resultante
+    static Collected search(RestUsersConnector connector, ObjectClass objectClass, Filter filter, OperationOptions options) {
+        List<RestUsersFilter> queries = filter != null
+                ? new RestUsersFilterTranslator().translate(filter)
+                : Collections.<RestUsersFilter>emptyList();
+        if (queries.isEmpty()) {
+            queries = Collections.singletonList(null);
+        }
+        Collected collected = new Collected();
+        for (RestUsersFilter query : queries) {
+            connector.executeQuery(objectClass, query, collected, options);
+        }
+        return collected;
+    }
+}
@@ -0,0 +1,88 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.HalPageReader.HalPage;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class HalPageReaderTest {
+
+    private static String page(int number, int totalPages, long totalElements, boolean next, String... uuids) {
+        JSONArray epersons = new JSONArray();
+        for (String uuid : uuids) {
+            epersons.put(new JSONObject().put("uuid", uuid).put("email", uuid + "@example.org"));
+        }
+        JSONObject links = new JSONObject().put("self", new JSONObject().put("href", "http://dspace/epersons"));
+        if (next) {
+            links.put("next", new JSONObject().put("href", "http://dspace/epersons?page=" + (number + 1)));
+        }
+        return new JSONObject()
+                .put("_embedded", new JSONObject().put("epersons", epersons).put("other", new JSONArray().put(1)))
+                .put("_links", links)
+                .put("page", new JSONObject().put("number", number).put("totalPages", totalPages).put("totalElements", totalElements))
+                .toString();
+    }
+
+    @Test
+    public void readsElementsLinksAndPageInfo() {
+        List<String> uuids = new ArrayList<>();
+        HalPage page = HalPageReader.read(new StringReader(page(0, 2, 4, true, "a", "b")), "epersons",
+                element -> uuids.add(element.getString("uuid")));
+        assertEquals(uuids, List.of("a", "b"));
+        assertEquals(page.getElements(), 2);
+        assertEquals(page.getNumber(), 0);
+        assertEquals(page.getTotalPages(), 2);
+        assertEquals(page.getTotalElements(), 4);
+        assertFalse(page.isStopped());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    public void lastPageHasNoNext() {
+        HalPage page = HalPageReader.read(new StringReader(page(1, 2, 4, false, "c", "d")), "epersons", element -> true);
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void totalPagesIsUsedWithoutNextLink() {
+        HalPage page = HalPageReader.read(new StringReader(page(0, 3, 6, false, "a", "b")), "epersons", element -> true);
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    public void stoppingSkipsTheRestButStillReadsPageInfo() {
+        List<String> uuids = new ArrayList<>();
+        HalPage page = HalPageReader.read(new StringReader(page(0, 5, 10, true, "a", "b", "c")), "epersons",
+                element -> uuids.add(element.getString("uuid")) && uuids.size() < 2);
+        assertEquals(uuids, List.of("a", "b"));
+        assertTrue(page.isStopped());
+        assertEquals(page.getTotalElements(), 10);
+        assertFalse(page.hasNext());
+    }
+
+    @Test
+    public void emptyPageHasNoNext() {
+        HalPage page = HalPageReader.read(new StringReader("{\"_embedded\":{\"epersons\":[]},\"page\":{\"number\":0,\"totalPages\":3}}"),
+                "epersons", element -> true);
+        assertEquals(page.getElements(), 0);
+        assertFalse(page.hasNext());
+
+        page = HalPageReader.read(new StringReader("{}"), "epersons", element -> true);
+        assertEquals(page.getElements(), 0);
+        assertEquals(page.getNumber(), -1);
+    }
+
+    @Test(expectedExceptions = JSONException.class)
+    public void nonObjectElementsAreRejected() {
+        HalPageReader.read(new StringReader("{\"_embedded\":{\"epersons\":[1]}}"), "epersons", element -> true);
+    }
+}
@@ -0,0 +1,163 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.HalPageReader.HalPage;
+import com.identicum.connectors.PagePrefetcher.PageLoader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ParallelPageFetcherTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private ExecutorService executor;
+
+    @BeforeClass
+    public void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterClass
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    // Listado paginado por offset como el de DSpace; beforePage se ejecuta antes de servir
+    // cada página para simular altas y bajas durante el recorrido
+    private static final class OffsetListing implements PageLoader<String> {
+        private final List<String> elements = new ArrayList<>();
+        private final Consumer<Integer> beforePage;
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private OffsetListing(int size, Consumer<Integer> beforePage) {
+            for (int i = 0; i < size; i++) {
+                elements.add("e" + i);
+            }
+            this.beforePage = beforePage;
+        }
+
+        @Override
+        public HalPage load(int number, Predicate<String> sink) {
+            requests.incrementAndGet();
+            beforePage.accept(number);
+            JSONArray items = new JSONArray();
+            int total;
+            synchronized (elements) {
+                total = elements.size();
+                for (int i = number * PAGE_SIZE; i < Math.min(total, (number + 1) * PAGE_SIZE); i++) {
+                    items.put(new JSONObject().put("uuid", elements.get(i)));
+                }
+            }
+            int totalPages = (total + PAGE_SIZE - 1) / PAGE_SIZE;
+            JSONObject links = new JSONObject();
+            if (number + 1 < totalPages) {
+                links.put("next", new JSONObject().put("href", "page=" + (number + 1)));
+            }
+            String json = new JSONObject()
+                    .put("_embedded", new JSONObject().put("epersons", items))
+                    .put("_links", links)
+                    .put("page", new JSONObject().put("number", number).put("totalPages", totalPages).put("totalElements", total))
+                    .toString();
+            return HalPageReader.read(new StringReader(json), "epersons", element -> sink.test(element.getString("uuid")));
+        }
+
+        private void remove(String element) {
+            synchronized (elements) {
+                elements.remove(element);
+            }
+        }
+
+        private void insertFirst(String element) {
+            synchronized (elements) {
+                elements.add(0, element);
+            }
+        }
+
+        private List<String> snapshot() {
+            synchronized (elements) {
+                return new ArrayList<>(elements);
+            }
+        }
+    }
+
+    private List<String> fetchAll(OffsetListing listing, boolean ordered) {
+        List<String> delivered = new ArrayList<>();
+        try (ParallelPageFetcher<String> fetcher = new ParallelPageFetcher<>(executor, listing, uuid -> uuid, 3, ordered)) {
+            fetcher.forEach(delivered::add);
+        }
+        return delivered;
+    }
+
+    @Test
+    public void orderedFetchKeepsPageOrder() {
+        OffsetListing listing = new OffsetListing(20, page -> { });
+        assertEquals(fetchAll(listing, true), listing.snapshot());
+        assertEquals(listing.requests.get(), 7);
+    }
+
+    @Test
+    public void unorderedFetchDeliversEveryElementOnce() {
+        OffsetListing listing = new OffsetListing(20, page -> { });
+        List<String> delivered = fetchAll(listing, false);
+        assertEquals(delivered.size(), 20);
+        assertEquals(new HashSet<>(delivered), new HashSet<>(listing.snapshot()));
+    }
+
+    @Test
+    public void deletionDuringTheScanTriggersARescan() {
+        AtomicInteger calls = new AtomicInteger();
+        OffsetListing[] holder = new OffsetListing[1];
+        // Una baja al principio del listado tras la primera página: todo se desplaza y un
+        // elemento queda en una página ya leída
+        holder[0] = new OffsetListing(20, page -> {
+            if (page > 0 && calls.incrementAndGet() == 1) {
+                holder[0].remove("e0");
+            }
+        });
+        List<String> delivered = fetchAll(holder[0], true);
+        assertEquals(delivered.size(), new HashSet<>(delivered).size(), "duplicates in " + delivered);
+        assertTrue(delivered.containsAll(holder[0].snapshot()), "missing elements in " + delivered);
+        assertTrue(holder[0].requests.get() > 7, "no rescan after " + holder[0].requests.get() + " requests");
+    }
+
+    @Test
+    public void insertionDuringTheScanDropsDuplicates() {
+        AtomicInteger calls = new AtomicInteger();
+        OffsetListing[] holder = new OffsetListing[1];
+        holder[0] = new OffsetListing(20, page -> {
+            if (page > 0 && calls.incrementAndGet() == 1) {
+                holder[0].insertFirst("new");
+            }
+        });
+        List<String> delivered = fetchAll(holder[0], false);
+        assertEquals(delivered.size(), new HashSet<>(delivered).size(), "duplicates in " + delivered);
+        assertEquals(new HashSet<>(delivered), new HashSet<>(holder[0].snapshot()));
+    }
+
+    @Test
+    public void consumerCanStopTheScan() {
+        OffsetListing listing = new OffsetListing(30, page -> { });
+        List<String> delivered = new ArrayList<>();
+        HalPage last;
+        try (ParallelPageFetcher<String> fetcher = new ParallelPageFetcher<>(executor, listing, uuid -> uuid, 2, true)) {
+            last = fetcher.forEach(uuid -> delivered.add(uuid) && delivered.size() < 5);
+        }
+        assertEquals(delivered, listing.snapshot().subList(0, 5));
+        assertTrue(last.isStopped());
+    }
+}
@@ -0,0 +1,101 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static org.testng.Assert.assertEquals;
+
+public class RestUsersConnectorCacheTest {
+
+    private FakeDSpace dspace;
+    private final List<RestUsersConnector> connectors = new ArrayList<>();
+
+    @BeforeMethod
+    public void start() throws Exception {
+        dspace = new FakeDSpace(10, 1, EpersonPages.Shape.SMALL).start(2);
+    }
+
+    @AfterMethod
+    public void stop() {
+        for (RestUsersConnector connector : connectors) {
+            connector.dispose();
+        }
+        connectors.clear();
+        dspace.close();
+    }
+
+    // Instancia del pool: todas con la misma configuración
+    private RestUsersConnector instance(boolean cacheEnabled) {
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setCacheEnabled(cacheEnabled);
+        RestUsersConnector connector = connector(configuration);
+        connectors.add(connector);
+        return connector;
+    }
+
+    private static ConnectorObject read(RestUsersConnector connector, String uuid) {
+        RestUsersFilter byUid = new RestUsersFilter();
+        byUid.byUid = uuid;
+        List<ConnectorObject> found = new ArrayList<>();
+        connector.executeQuery(ObjectClass.ACCOUNT, byUid, found::add, null);
+        assertEquals(found.size(), 1);
+        return found.get(0);
+    }
+
+    private static Object firstName(ConnectorObject object) {
+        return object.getAttributeByName(RestUsersConnector.ATTR_FIRST_NAME).getValue().get(0);
+    }
+
+    @Test
+    public void conditionalReadsAreSharedByThePool() {
+        RestUsersConnector first = instance(false);
+        RestUsersConnector second = instance(false);
+        String uuid = dspace.userUuid(2);
+
+        read(first, uuid);
+        long notModified = dspace.getNotModifiedCount();
+        read(second, uuid);
+        assertEquals(dspace.getNotModifiedCount(), notModified + 1);
+        assertEquals(first.getConditionalReadStats().getNotModified(), 1);
+        assertEquals(second.getConditionalReadStats().getNotModified(), 1);
+    }
+
+    @Test
+    public void writesInvalidateConditionalReadsOfOtherInstances() {
+        RestUsersConnector first = instance(false);
+        RestUsersConnector second = instance(false);
+        String uuid = dspace.userUuid(4);
+
+        read(second, uuid);
+        first.update(ObjectClass.ACCOUNT, new Uid(uuid), Set.of(AttributeBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, "Updated")), null);
+        assertEquals(firstName(read(second, uuid)), "Updated");
+        assertEquals(second.getConditionalReadStats().getNotModified(), 0);
+    }
+
+    @Test
+    public void objectCacheIsSharedByThePool() {
+        RestUsersConnector first = instance(true);
+        RestUsersConnector second = instance(true);
+        String uuid = dspace.userUuid(6);
+
+        read(first, uuid);
+        long requests = dspace.getRequestCount();
+        read(second, uuid);
+        assertEquals(dspace.getRequestCount(), requests);
+        assertEquals(second.getCacheStats().getHits(), 1);
+
+        first.update(ObjectClass.ACCOUNT, new Uid(uuid), Set.of(AttributeBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, "Cached")), null);
+        assertEquals(firstName(read(second, uuid)), "Cached");
+    }
+}
@@ -0,0 +1,83 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.FakeDSpaceSupport.Collected;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static com.identicum.connectors.FakeDSpaceSupport.search;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RestUsersConnectorRetryTest {
+
+    private static final int USERS = 200;
+
+    private FakeDSpace dspace;
+    private RestUsersConnector connector;
+
+    @BeforeMethod
+    public void start() throws Exception {
+        dspace = new FakeDSpace(USERS, 2, EpersonPages.Shape.SMALL).start(4);
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setPageSize(10);
+        configuration.setMaxRetries(20);
+        configuration.setRetryMaxDelay(20);
+        connector = connector(configuration);
+    }
+
+    @AfterMethod
+    public void stop() {
+        connector.dispose();
+        dspace.close();
+    }
+
+    @Test
+    public void busyResponsesAreRetried() {
+        dspace.setErrorRates(0, 0.2, 0.2);
+        Collected collected = search(connector, ObjectClass.ACCOUNT, null, null);
+        assertEquals(collected.objects.size(), USERS);
+        assertEquals(new HashSet<>(collected.names()).size(), USERS);
+        assertTrue(dspace.getInjectedErrorCount() > 0, "no errors injected");
+    }
+
+    @Test
+    public void busyResponsesGiveUpAfterMaxRetries() {
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setMaxRetries(2);
+        configuration.setRetryMaxDelay(20);
+        RestUsersConnector impatient = connector(configuration);
+        dspace.setErrorRates(0, 1, 0);
+        try {
+            search(impatient, ObjectClass.ACCOUNT, null, null);
+            fail("search succeeded against a server that always answers 429");
+        } catch (RuntimeException expected) {
+            assertEquals(dspace.getInjectedErrorCount(), 3);
+        } finally {
+            impatient.dispose();
+        }
+    }
+
+    @Test
+    public void rejectedTokenIsReplacedOnce() {
+        search(connector, ObjectClass.ACCOUNT, null, null);
+        long logins = dspace.getLoginCount();
+        dspace.setErrorRates(1, 0, 0);
+        try {
+            search(connector, ObjectClass.ACCOUNT, null, null);
+            fail("search succeeded against a server that always answers 401");
+        } catch (RuntimeException expected) {
+            assertEquals(dspace.getLoginCount(), logins + 1);
+        }
+        // El token nuevo sigue siendo válido: no hay más logins
+        dspace.setErrorRates(0, 0, 0);
+        assertEquals(search(connector, ObjectClass.ACCOUNT, null, null).objects.size(), USERS);
+        assertEquals(dspace.getLoginCount(), logins + 1);
+    }
+}
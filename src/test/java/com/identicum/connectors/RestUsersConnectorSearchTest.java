@@ -0,0 +1,198 @@
+package com.identicum.connectors;
+
+import com.identicum.connectors.FakeDSpaceSupport.Collected;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.OperationOptions;
+import org.identityconnectors.framework.common.objects.OperationOptionsBuilder;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static com.identicum.connectors.FakeDSpaceSupport.search;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class RestUsersConnectorSearchTest {
+
+    private static final int USERS = 250;
+
+    private FakeDSpace dspace;
+    private RestUsersConnector connector;
+
+    @BeforeClass
+    public void start() throws Exception {
+        dspace = new FakeDSpace(USERS, 5, EpersonPages.Shape.SMALL).start(4);
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setPageSize(50);
+        connector = connector(configuration);
+    }
+
+    @AfterClass
+    public void stop() {
+        connector.dispose();
+        dspace.close();
+    }
+
+    private static Filter startsWith(String attribute, String prefix) {
+        return FilterBuilder.startsWith(AttributeBuilder.build(attribute, prefix));
+    }
+
+    private static Filter equalTo(String attribute, String value) {
+        return FilterBuilder.equalTo(AttributeBuilder.build(attribute, value));
+    }
+
+    private static OperationOptions paged(int pageSize, int offset) {
+        return new OperationOptionsBuilder().setPageSize(pageSize).setPagedResultsOffset(offset).build();
+    }
+
+    // Emails de los usuarios del FakeDSpace que empiezan por el prefijo
+    private List<String> emailsStartingWith(String prefix) {
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            if (dspace.userEmail(i).startsWith(prefix)) {
+                emails.add(dspace.userEmail(i));
+            }
+        }
+        return emails;
+    }
+
+    // ==============================
+    // Listados
+    // ==============================
+
+    @Test
+    public void fullListingReturnsEveryUserOnce() {
+        Collected collected = search(connector, ObjectClass.ACCOUNT, null, null);
+        assertEquals(collected.objects.size(), USERS);
+        assertEquals(new HashSet<>(collected.names()).size(), USERS);
+    }
+
+    @Test
+    public void pagedListingReturnsTheRequestedWindow() {
+        List<String> all = search(connector, ObjectClass.ACCOUNT, null, null).names();
+        Collected collected = search(connector, ObjectClass.ACCOUNT, null, paged(20, 41));
+        assertEquals(collected.names(), all.subList(40, 60));
+        assertEquals(collected.result.getRemainingPagedResults(), USERS - 60);
+        assertEquals(collected.result.isAllResultsReturned(), false);
+
+        collected = search(connector, ObjectClass.ACCOUNT, null, paged(20, 241));
+        assertEquals(collected.names(), all.subList(240, USERS));
+        assertEquals(collected.result.getRemainingPagedResults(), 0);
+    }
+
+    @Test
+    public void parallelListingReturnsEveryUserOnce() {
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setPageSize(20);
+        configuration.setParallelPageFetches(4);
+        RestUsersConnector parallel = connector(configuration);
+        try {
+            Collected collected = search(parallel, ObjectClass.ACCOUNT, null, null);
+            assertEquals(collected.objects.size(), USERS);
+            assertEquals(new HashSet<>(collected.names()).size(), USERS);
+        } finally {
+            parallel.dispose();
+        }
+    }
+
+    @Test
+    public void groupsAreListed() {
+        assertEquals(search(connector, ObjectClass.GROUP, null, null).objects.size(), 5);
+    }
+
+    // ==============================
+    // Búsquedas exactas
+    // ==============================
+
+    @Test
+    public void exactSearchesFindOneUser() {
+        String email = dspace.userEmail(17);
+        assertEquals(search(connector, ObjectClass.ACCOUNT, equalTo(Uid.NAME, dspace.userUuid(17)), null).names(), List.of(email));
+        assertEquals(search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_EMAIL, email), null).names(), List.of(email));
+        assertEquals(search(connector, ObjectClass.ACCOUNT, equalTo(Name.NAME, email), null).names(), List.of(email));
+        assertEquals(search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_NET_ID, "net17"), null).names(), List.of(email));
+    }
+
+    @Test
+    public void exactSearchesWithoutMatchesReturnNothing() {
+        assertTrue(search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_EMAIL, "nobody@example.org"), null).objects.isEmpty());
+        assertTrue(search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_NET_ID, "net99999"), null).objects.isEmpty());
+    }
+
+    @Test
+    public void pagedExactSearchesCountMatchesOnly() {
+        String email = dspace.userEmail(200);
+        Collected collected = search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_NET_ID, "net200"), paged(2, 1));
+        assertEquals(collected.names(), List.of(email));
+        assertEquals(collected.result.getRemainingPagedResults(), 0);
+        assertEquals(collected.result.isAllResultsReturned(), true);
+
+        collected = search(connector, ObjectClass.ACCOUNT, equalTo(Name.NAME, email), paged(2, 1));
+        assertEquals(collected.names(), List.of(email));
+        assertEquals(collected.result.isAllResultsReturned(), true);
+
+        collected = search(connector, ObjectClass.ACCOUNT, equalTo(RestUsersConnector.ATTR_NET_ID, "net200"), paged(2, 2));
+        assertTrue(collected.objects.isEmpty());
+        assertEquals(collected.result.isAllResultsReturned(), true);
+
+        collected = search(connector, ObjectClass.GROUP, equalTo(Name.NAME, "Group 4"), paged(1, 1));
+        assertEquals(collected.names(), List.of("Group 4"));
+    }
+
+    @Test
+    public void groupSearchByNameIsExact() {
+        Collected collected = search(connector, ObjectClass.GROUP, equalTo(Name.NAME, "Group 1"), null);
+        assertEquals(collected.names(), List.of("Group 1"));
+    }
+
+    // ==============================
+    // Prefijos
+    // ==============================
+
+    @Test
+    public void prefixSearchReturnsMatchingUsersOnce() {
+        Collected collected = search(connector, ObjectClass.ACCOUNT, startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), null);
+        assertEquals(new HashSet<>(collected.names()), new HashSet<>(emailsStartingWith("user1")));
+        assertEquals(collected.objects.size(), emailsStartingWith("user1").size());
+    }
+
+    @Test
+    public void overlappingAlternativesAreNotRepeated() {
+        Collected collected = search(connector, ObjectClass.ACCOUNT, FilterBuilder.or(
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(Name.NAME, "user12")), null);
+        assertEquals(collected.objects.size(), emailsStartingWith("user1").size());
+        assertEquals(new HashSet<>(collected.names()).size(), collected.objects.size());
+    }
+
+    @Test
+    public void incompatiblePrefixesMatchNothing() {
+        Collected collected = search(connector, ObjectClass.ACCOUNT, FilterBuilder.and(
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_EMAIL, "user2")), null);
+        assertTrue(collected.objects.isEmpty());
+    }
+
+    @Test
+    public void pagedPrefixSearchCountsMatchesOnly() {
+        List<String> matches = search(connector, ObjectClass.ACCOUNT, startsWith(RestUsersConnector.ATTR_EMAIL, "user2"), null).names();
+        Collected collected = search(connector, ObjectClass.ACCOUNT, startsWith(RestUsersConnector.ATTR_EMAIL, "user2"), paged(5, 6));
+        assertEquals(collected.names(), matches.subList(5, 10));
+        assertEquals(collected.result.isAllResultsReturned(), false);
+    }
+
+    @Test
+    public void prefixSearchOnNetId() {
+        Collected collected = search(connector, ObjectClass.ACCOUNT, startsWith(RestUsersConnector.ATTR_NET_ID, "net24"), null);
+        assertEquals(new HashSet<>(collected.names()), new HashSet<>(emailsStartingWith("user24")));
+    }
+}
@@ -0,0 +1,181 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.exceptions.ConfigurationException;
+import org.identityconnectors.framework.common.exceptions.ConnectorException;
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.spi.SyncTokenResultsHandler;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RestUsersConnectorSyncTest {
+
+    private FakeDSpace dspace;
+    private Path directory;
+    private RestUsersConnector connector;
+
+    @BeforeMethod
+    public void start() throws Exception {
+        dspace = new FakeDSpace(30, 2, EpersonPages.Shape.SMALL).start(2);
+        directory = Files.createTempDirectory("sync-test");
+        RestUsersConfiguration configuration = configuration(dspace);
+        configuration.setPageSize(10);
+        configuration.setSyncStateFile(directory.resolve("sync").toString());
+        connector = connector(configuration);
+    }
+
+    @AfterMethod
+    public void stop() throws IOException {
+        connector.dispose();
+        dspace.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Deltas recibidos y token final de un sync
+    private static final class Recorded implements SyncTokenResultsHandler {
+        final List<SyncDelta> deltas = new ArrayList<>();
+        SyncToken token;
+
+        @Override
+        public boolean handle(SyncDelta delta) {
+            deltas.add(delta);
+            return true;
+        }
+
+        @Override
+        public void handleResult(SyncToken token) {
+            this.token = token;
+        }
+    }
+
+    private Recorded sync(Object token) {
+        Recorded recorded = new Recorded();
+        connector.sync(ObjectClass.ACCOUNT, token != null ? new SyncToken(token) : null, recorded, null);
+        return recorded;
+    }
+
+    private void touch(int user) {
+        connector.update(ObjectClass.ACCOUNT, new Uid(dspace.userUuid(user)),
+                Set.of(AttributeBuilder.build(RestUsersConnector.ATTR_FIRST_NAME, "Changed " + System.nanoTime())), null);
+    }
+
+    @Test
+    public void firstSyncTakesABaseline() {
+        Recorded recorded = sync(null);
+        assertTrue(recorded.deltas.isEmpty());
+        assertEquals(recorded.token.getValue(), 1L);
+        assertTrue(sync(1L).deltas.isEmpty());
+    }
+
+    @Test
+    public void changesAreReportedWithTheStartingToken() {
+        SyncToken baseline = connector.getLatestSyncToken(ObjectClass.ACCOUNT);
+        String updated = dspace.userUuid(3);
+        String deleted = dspace.userUuid(5);
+        touch(3);
+        String created = connector.create(ObjectClass.ACCOUNT, Set.of(
+                AttributeBuilder.build(RestUsersConnector.ATTR_EMAIL, "created@example.org")), null).getUidValue();
+        connector.delete(ObjectClass.ACCOUNT, new Uid(deleted), null);
+
+        Recorded recorded = sync(baseline.getValue());
+        assertEquals(recorded.deltas.size(), 3);
+        for (SyncDelta delta : recorded.deltas) {
+            assertEquals(delta.getToken(), baseline);
+            if (delta.getUid().getUidValue().equals(updated)) {
+                assertEquals(delta.getDeltaType(), SyncDeltaType.UPDATE);
+            } else if (delta.getUid().getUidValue().equals(created)) {
+                assertEquals(delta.getDeltaType(), SyncDeltaType.CREATE);
+            } else {
+                assertEquals(delta.getUid().getUidValue(), deleted);
+                assertEquals(delta.getDeltaType(), SyncDeltaType.DELETE);
+            }
+        }
+        assertTrue(sync(recorded.token.getValue()).deltas.isEmpty());
+    }
+
+    @Test
+    public void anUnsavedTokenRepeatsTheChanges() {
+        SyncToken baseline = connector.getLatestSyncToken(ObjectClass.ACCOUNT);
+        touch(7);
+        Recorded first = sync(baseline.getValue());
+        // midPoint no guardó first.token: el siguiente sync vuelve a partir de baseline
+        Recorded retry = sync(baseline.getValue());
+        assertEquals(first.deltas.size(), 1);
+        assertEquals(retry.deltas.size(), 1);
+        assertEquals(retry.deltas.get(0).getUid().getUidValue(), dspace.userUuid(7));
+        assertTrue((Long) retry.token.getValue() > (Long) first.token.getValue());
+    }
+
+    @Test
+    public void stoppedSyncDoesNotAdvanceTheState() {
+        SyncToken baseline = connector.getLatestSyncToken(ObjectClass.ACCOUNT);
+        touch(1);
+        touch(2);
+        List<SyncDelta> seen = new ArrayList<>();
+        connector.sync(ObjectClass.ACCOUNT, baseline, delta -> seen.add(delta) && false, null);
+        assertEquals(seen.size(), 1);
+        assertEquals(sync(null).deltas.size(), 2);
+    }
+
+    @Test
+    public void discardedGenerationsAreRejected() {
+        long first = (Long) sync(null).token.getValue();
+        for (int i = 0; i < SyncDigestStore.RETAINED_GENERATIONS; i++) {
+            sync(null);
+        }
+        try {
+            sync(first);
+            fail("token of a discarded generation accepted");
+        } catch (ConnectorException expected) {
+            assertTrue(expected.getMessage().contains("reset the sync token"), expected.getMessage());
+        }
+    }
+
+    @Test
+    public void missingLatestStateIsReportedWithoutToken() throws IOException {
+        sync(null);
+        // La última generación aparece en el directorio pero no se puede leer
+        Files.createSymbolicLink(directory.resolve("sync.7"), directory.resolve("missing"));
+        try {
+            sync(null);
+            fail("sync without stored state accepted");
+        } catch (ConnectorException expected) {
+            assertTrue(expected.getMessage().startsWith("Sync token 7 has no stored state"), expected.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = ConfigurationException.class)
+    public void syncRequiresAStateFile() {
+        RestUsersConnector withoutState = connector(configuration(dspace));
+        try {
+            withoutState.sync(ObjectClass.ACCOUNT, null, new Recorded(), null);
+        } finally {
+            withoutState.dispose();
+        }
+    }
+}
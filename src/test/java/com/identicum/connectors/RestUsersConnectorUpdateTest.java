@@ -0,0 +1,160 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.exceptions.InvalidAttributeValueException;
+import org.identityconnectors.framework.common.objects.AttributeDelta;
+import org.identityconnectors.framework.common.objects.AttributeDeltaBuilder;
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class RestUsersConnectorUpdateTest {
+
+    private FakeDSpace dspace;
+    private RestUsersConnector connector;
+
+    @BeforeClass
+    public void start() throws Exception {
+        dspace = new FakeDSpace(20, 3, EpersonPages.Shape.SMALL).start(2);
+        connector = connector(configuration(dspace));
+    }
+
+    @AfterClass
+    public void stop() {
+        connector.dispose();
+        dspace.close();
+    }
+
+    private static AttributeDelta replace(String attribute, Object... values) {
+        return AttributeDeltaBuilder.build(attribute, List.of(values));
+    }
+
+    private static JSONObject operation(String op, String path, Object value) {
+        JSONObject operation = new JSONObject().put("op", op).put("path", path);
+        return value != null ? operation.put("value", value) : operation;
+    }
+
+    private static JSONArray metadataValues(String... values) {
+        JSONArray array = new JSONArray();
+        for (String value : values) {
+            array.put(new JSONObject().put("value", value));
+        }
+        return array;
+    }
+
+    private JSONArray patch(boolean group, Set<AttributeDelta> modifications, List<AttributeDelta> membershipDeltas) {
+        return new JSONArray(connector.buildPatch(group, modifications, membershipDeltas, () -> {
+            throw new AssertionError("current state should not be needed");
+        }).toString());
+    }
+
+    private static void assertOperations(JSONArray actual, JSONObject... expected) {
+        assertTrue(actual.similar(new JSONArray(List.of(expected))), "patch " + actual);
+    }
+
+    // ==============================
+    // Documento JSON Patch
+    // ==============================
+
+    @Test
+    public void fieldsAndMetadataAreReplaced() {
+        assertOperations(patch(false, Set.of(replace(RestUsersConnector.ATTR_CAN_LOG_IN, false)), new ArrayList<>()),
+                operation("replace", "/canLogin", false));
+        assertOperations(patch(false, Set.of(replace(RestUsersConnector.ATTR_FIRST_NAME, "Ana")), new ArrayList<>()),
+                operation("replace", "/metadata/eperson.firstname", metadataValues("Ana")));
+    }
+
+    @Test
+    public void emptyReplaceRemovesTheField() {
+        assertOperations(patch(false, Set.of(AttributeDeltaBuilder.build(RestUsersConnector.ATTR_NET_ID, List.of())), new ArrayList<>()),
+                operation("remove", "/netid", null));
+        assertOperations(patch(false, Set.of(AttributeDeltaBuilder.build(RestUsersConnector.ATTR_LAST_NAME, List.of())), new ArrayList<>()),
+                operation("remove", "/metadata/eperson.lastname", null));
+    }
+
+    @Test
+    public void metadataValuesAreRemovedByPositionInTheCurrentState() {
+        JSONObject current = new JSONObject().put("metadata", new JSONObject()
+                .put("eperson.phone", metadataValues("111", "222", "333")));
+        AttributeDelta delta = AttributeDeltaBuilder.build(RestUsersConnector.ATTR_PHONE, List.of("444"), List.of("111", "333"));
+        JSONArray actual = new JSONArray(connector.buildPatch(false, Set.of(delta), new ArrayList<>(), () -> current).toString());
+        assertOperations(actual,
+                operation("remove", "/metadata/eperson.phone/2", null),
+                operation("remove", "/metadata/eperson.phone/0", null),
+                operation("add", "/metadata/eperson.phone/-", new JSONObject().put("value", "444")));
+    }
+
+    @Test
+    public void accountNameIsTheEmail() {
+        assertOperations(patch(false, Set.of(replace(Name.NAME, "new@example.org")), new ArrayList<>()),
+                operation("replace", "/email", "new@example.org"));
+        // Con ambos iguales se envía una sola operación
+        assertOperations(patch(false, Set.of(replace(Name.NAME, "new@example.org"), replace(RestUsersConnector.ATTR_EMAIL, "new@example.org")),
+                new ArrayList<>()), operation("replace", "/email", "new@example.org"));
+    }
+
+    @Test(expectedExceptions = InvalidAttributeValueException.class)
+    public void accountNameAndEmailMustMatch() {
+        patch(false, Set.of(replace(Name.NAME, "a@example.org"), replace(RestUsersConnector.ATTR_EMAIL, "b@example.org")), new ArrayList<>());
+    }
+
+    @Test
+    public void groupNameAndDescription() {
+        assertOperations(patch(true, Set.of(replace(Name.NAME, "Renamed")), new ArrayList<>()),
+                operation("replace", "/name", "Renamed"));
+        assertOperations(patch(true, Set.of(replace(RestUsersConnector.ATTR_GROUP_DESCRIPTION, "Desc")), new ArrayList<>()),
+                operation("replace", "/metadata/dc.description", metadataValues("Desc")));
+    }
+
+    @Test
+    public void membershipDeltasAreSetApart() {
+        List<AttributeDelta> membership = new ArrayList<>();
+        AttributeDelta roles = AttributeDeltaBuilder.build(RestUsersConnector.ATTR_ROLES, List.of("g1"), null);
+        assertEquals(patch(false, Set.of(roles), membership).length(), 0);
+        assertEquals(membership, List.of(roles));
+    }
+
+    @Test
+    public void unknownAttributesAreRejected() {
+        try {
+            patch(false, Set.of(replace("unknown", "x")), new ArrayList<>());
+            fail("unknown attribute accepted");
+        } catch (InvalidAttributeValueException expected) {
+            assertTrue(expected.getMessage().contains("unknown"));
+        }
+    }
+
+    // ==============================
+    // updateDelta contra DSpace
+    // ==============================
+
+    @Test
+    public void renamingAnAccountChangesItsEmail() {
+        Uid uid = new Uid(dspace.userUuid(3));
+        connector.updateDelta(ObjectClass.ACCOUNT, uid, Set.of(replace(Name.NAME, "renamed3@example.org"),
+                replace(RestUsersConnector.ATTR_FIRST_NAME, "Renamed")), null);
+        List<ConnectorObject> found = new ArrayList<>();
+        RestUsersFilter byUid = new RestUsersFilter();
+        byUid.byUid = uid.getUidValue();
+        connector.executeQuery(ObjectClass.ACCOUNT, byUid, found::add, null);
+        assertEquals(found.size(), 1);
+        assertEquals(found.get(0).getName().getNameValue(), "renamed3@example.org");
+        assertEquals(found.get(0).getAttributeByName(RestUsersConnector.ATTR_EMAIL).getValue(), List.of("renamed3@example.org"));
+        assertEquals(found.get(0).getAttributeByName(RestUsersConnector.ATTR_FIRST_NAME).getValue(), List.of("Renamed"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.AttributeBuilder;
+import org.identityconnectors.framework.common.objects.Name;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.identityconnectors.framework.common.objects.filter.Filter;
+import org.identityconnectors.framework.common.objects.filter.FilterBuilder;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class RestUsersFilterTranslatorTest {
+
+    private static Filter startsWith(String attribute, String prefix) {
+        return FilterBuilder.startsWith(AttributeBuilder.build(attribute, prefix));
+    }
+
+    private static Filter equalTo(String attribute, String value) {
+        return FilterBuilder.equalTo(AttributeBuilder.build(attribute, value));
+    }
+
+    private static RestUsersFilter translateOne(Filter filter) {
+        List<RestUsersFilter> queries = new RestUsersFilterTranslator().translate(filter);
+        assertEquals(queries.size(), 1, "queries for " + filter);
+        return queries.get(0);
+    }
+
+    // ==============================
+    // Igualdades
+    // ==============================
+
+    @Test
+    public void equalityFiltersMapToTheirSearch() {
+        assertEquals(translateOne(equalTo(Uid.NAME, "abc")).byUid, "abc");
+        assertEquals(translateOne(equalTo(Name.NAME, "user1@example.org")).byName, "user1@example.org");
+        assertEquals(translateOne(equalTo(RestUsersConnector.ATTR_EMAIL, "user1@example.org")).byEmail, "user1@example.org");
+        assertEquals(translateOne(equalTo(RestUsersConnector.ATTR_NET_ID, "net1")).byNetId, "net1");
+        assertEquals(translateOne(equalTo(RestUsersConnector.ATTR_USERNAME, "user1")).byUsername, "user1");
+    }
+
+    @Test
+    public void negatedEqualityIsNotTranslated() {
+        assertTrue(new RestUsersFilterTranslator().translate(FilterBuilder.not(equalTo(Uid.NAME, "abc"))).isEmpty());
+    }
+
+    // ==============================
+    // Prefijos
+    // ==============================
+
+    @Test
+    public void startsWithBecomesPrefixOnTheJsonField() {
+        RestUsersFilter query = translateOne(startsWith(Name.NAME, "user1"));
+        assertEquals(query.byPrefix, Collections.singletonList(Map.of("name", "user1")));
+        query = translateOne(startsWith(RestUsersConnector.ATTR_NET_ID, "net2"));
+        assertEquals(query.byPrefix, Collections.singletonList(Map.of("netid", "net2")));
+    }
+
+    @Test
+    public void emptyOrNegatedPrefixFallsBackToFullListing() {
+        assertTrue(new RestUsersFilterTranslator().translate(startsWith(RestUsersConnector.ATTR_EMAIL, "")).isEmpty());
+        assertTrue(new RestUsersFilterTranslator().translate(FilterBuilder.not(startsWith(RestUsersConnector.ATTR_EMAIL, "a"))).isEmpty());
+    }
+
+    @Test
+    public void orOfPrefixesIsOneQueryWithoutRepeatedAlternatives() {
+        RestUsersFilter query = translateOne(FilterBuilder.or(
+                FilterBuilder.or(startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_EMAIL, "user2")),
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1")));
+        assertEquals(query.byPrefix, Arrays.asList(Map.of("email", "user1"), Map.of("email", "user2")));
+    }
+
+    @Test
+    public void andOfPrefixesKeepsTheLongestOnEachField() {
+        RestUsersFilter query = translateOne(FilterBuilder.and(
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_EMAIL, "USER12")));
+        assertEquals(query.byPrefix, Collections.singletonList(Map.of("email", "USER12")));
+
+        query = translateOne(FilterBuilder.and(
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_NET_ID, "net1")));
+        assertEquals(query.byPrefix, Collections.singletonList(Map.of("email", "user1", "netid", "net1")));
+    }
+
+    @Test
+    public void andOfIncompatiblePrefixesMatchesNothing() {
+        RestUsersFilter query = translateOne(FilterBuilder.and(
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_EMAIL, "user2")));
+        assertTrue(query.byPrefix.isEmpty());
+    }
+
+    @Test
+    public void andWithEqualityUsesTheEquality() {
+        RestUsersFilter query = translateOne(FilterBuilder.and(
+                startsWith(Name.NAME, "user"), equalTo(RestUsersConnector.ATTR_EMAIL, "user5@example.org")));
+        assertEquals(query.byEmail, "user5@example.org");
+        assertNull(query.byPrefix);
+    }
+
+    @Test
+    public void andDistributesOverOr() {
+        RestUsersFilter query = translateOne(FilterBuilder.and(
+                FilterBuilder.or(startsWith(RestUsersConnector.ATTR_EMAIL, "user1"), startsWith(RestUsersConnector.ATTR_EMAIL, "user2")),
+                startsWith(RestUsersConnector.ATTR_EMAIL, "user29")));
+        assertEquals(query.byPrefix, Collections.singletonList(Map.of("email", "user29")));
+    }
+}
@@ -0,0 +1,72 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.common.security.GuardedString;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.testng.annotations.Test;
+
+import static com.identicum.connectors.FakeDSpaceSupport.configuration;
+import static com.identicum.connectors.FakeDSpaceSupport.connector;
+import static com.identicum.connectors.FakeDSpaceSupport.search;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class SessionRegistryTest {
+
+    private static final String SERVICE = "http://session-registry-test.example.org";
+
+    private static GuardedString password(String clear) {
+        return new GuardedString(clear.toCharArray());
+    }
+
+    @Test
+    public void sessionsAreSharedAndReleasedWithTheirLastUser() {
+        int before = SessionRegistry.size();
+        AuthManager first = SessionRegistry.acquire(SERVICE, "admin", password("secret"));
+        AuthManager second = SessionRegistry.acquire(SERVICE, "admin", password("secret"));
+        assertSame(second, first);
+        assertEquals(SessionRegistry.size(), before + 1);
+
+        SessionRegistry.release(first);
+        assertEquals(SessionRegistry.size(), before + 1);
+        SessionRegistry.release(second);
+        assertEquals(SessionRegistry.size(), before);
+        // Una sesión ya descartada no se vuelve a entregar
+        AuthManager again = SessionRegistry.acquire(SERVICE, "admin", password("secret"));
+        assertNotSame(again, first);
+        SessionRegistry.release(again);
+    }
+
+    @Test
+    public void aNewPasswordOpensAnotherSessionAndTheOldOneGoes() {
+        int before = SessionRegistry.size();
+        AuthManager old = SessionRegistry.acquire(SERVICE, "rotated", password("old"));
+        AuthManager current = SessionRegistry.acquire(SERVICE, "rotated", password("new"));
+        assertNotSame(current, old);
+        assertEquals(SessionRegistry.size(), before + 2);
+        SessionRegistry.release(old);
+        assertEquals(SessionRegistry.size(), before + 1);
+        SessionRegistry.release(current);
+        assertEquals(SessionRegistry.size(), before);
+    }
+
+    @Test
+    public void connectorInstancesShareOneLoginAndReleaseOnDispose() throws Exception {
+        FakeDSpace dspace = new FakeDSpace(10, 1, EpersonPages.Shape.SMALL).start(2);
+        int before = SessionRegistry.size();
+        RestUsersConnector first = connector(configuration(dspace));
+        RestUsersConnector second = connector(configuration(dspace));
+        try {
+            search(first, ObjectClass.ACCOUNT, null, null);
+            search(second, ObjectClass.ACCOUNT, null, null);
+            assertEquals(dspace.getLoginCount(), 1);
+            assertEquals(SessionRegistry.size(), before + 1);
+            first.dispose();
+            assertEquals(SessionRegistry.size(), before + 1);
+            second.dispose();
+            assertEquals(SessionRegistry.size(), before);
+        } finally {
+            dspace.close();
+        }
+    }
+}
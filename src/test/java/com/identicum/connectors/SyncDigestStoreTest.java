@@ -0,0 +1,120 @@
+package com.identicum.connectors;
+
+import org.identityconnectors.framework.common.objects.ConnectorObject;
+import org.identityconnectors.framework.common.objects.ConnectorObjectBuilder;
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNull;
+
+public class SyncDigestStoreTest {
+
+    private Path directory;
+    private Path base;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("sync-digest-store");
+        base = directory.resolve("sync");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void generationsRoundTrip() {
+        assertEquals(SyncDigestStore.latestGeneration(base), -1);
+        String uuid = UUID.randomUUID().toString();
+        SyncDigestStore store = new SyncDigestStore(1);
+        store.put(uuid, 42L);
+        store.saveGeneration(base);
+
+        assertEquals(SyncDigestStore.latestGeneration(base), 1);
+        SyncDigestStore loaded = SyncDigestStore.loadGeneration(base, 1);
+        assertEquals(loaded.getGeneration(), 1);
+        assertEquals(loaded.size(), 1);
+        assertEquals(loaded.get(uuid), Long.valueOf(42L));
+        assertNull(SyncDigestStore.loadGeneration(base, 2));
+    }
+
+    @Test
+    public void onlyTheLastGenerationsAreKept() throws IOException {
+        for (long generation = 1; generation <= 5; generation++) {
+            new SyncDigestStore(generation).saveGeneration(base);
+        }
+        assertEquals(files(), List.of("sync.3", "sync.4", "sync.5"));
+        assertEquals(SyncDigestStore.latestGeneration(base), 5);
+        assertNull(SyncDigestStore.loadGeneration(base, 2));
+    }
+
+    @Test
+    public void unrelatedFilesAreIgnored() throws IOException {
+        Files.createFile(directory.resolve("sync.tmp"));
+        Files.createFile(directory.resolve("other.9"));
+        new SyncDigestStore(2).saveGeneration(base);
+        assertEquals(SyncDigestStore.latestGeneration(base), 2);
+    }
+
+    @Test
+    public void missingFromListsDeletedEpersons() {
+        String kept = UUID.randomUUID().toString();
+        String deleted = UUID.randomUUID().toString();
+        SyncDigestStore previous = new SyncDigestStore(1);
+        previous.put(kept, 1L);
+        previous.put(deleted, 2L);
+        SyncDigestStore current = new SyncDigestStore(2);
+        current.put(kept, 3L);
+        assertEquals(previous.missingFrom(current), Collections.singletonList(deleted));
+        assertEquals(current.missingFrom(previous), Collections.emptyList());
+    }
+
+    @Test
+    public void digestIgnoresExcludedAttributesAndOrder() {
+        ConnectorObject object = new ConnectorObjectBuilder().setObjectClass(ObjectClass.ACCOUNT)
+                .setUid("u1").setName("user1@example.org")
+                .addAttribute("email", "user1@example.org")
+                .addAttribute(RestUsersConnector.ATTR_LAST_ACTIVE, "2024-01-01")
+                .build();
+        ConnectorObject touched = new ConnectorObjectBuilder().setObjectClass(ObjectClass.ACCOUNT)
+                .addAttribute(RestUsersConnector.ATTR_LAST_ACTIVE, "2024-06-01")
+                .addAttribute("email", "user1@example.org")
+                .setUid("u1").setName("user1@example.org")
+                .build();
+        ConnectorObject changed = new ConnectorObjectBuilder().setObjectClass(ObjectClass.ACCOUNT)
+                .setUid("u1").setName("user1@example.org")
+                .addAttribute("email", "other@example.org")
+                .addAttribute(RestUsersConnector.ATTR_LAST_ACTIVE, "2024-01-01")
+                .build();
+        Set<String> excluded = Set.of(RestUsersConnector.ATTR_LAST_ACTIVE);
+        assertEquals(SyncDigestStore.digest(touched, excluded), SyncDigestStore.digest(object, excluded));
+        assertNotEquals(SyncDigestStore.digest(changed, excluded), SyncDigestStore.digest(object, excluded));
+        assertNotEquals(SyncDigestStore.digest(touched, Set.of()), SyncDigestStore.digest(object, Set.of()));
+    }
+}